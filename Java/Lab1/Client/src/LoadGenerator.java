@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends one-shot requests to the key server from virtual threads and records their latency in
+ * microseconds. Closed loop: a fixed number of clients, each waiting for its answer (plus the delay)
+ * before the next request. Open loop: requests start on a fixed schedule regardless of how fast the
+ * server answers, and latency is measured from the scheduled start, so a stalled server shows up
+ * in the tail instead of silently lowering the request rate.
+ */
+public class LoadGenerator {
+    private final String host;
+    private final int port;
+    private final double hitRatio;
+    private final int hotNames;
+    private final String profile;
+    private final String runId = Long.toHexString(System.nanoTime());
+    private final AtomicLong unique = new AtomicLong();
+
+    final Histogram hits = new Histogram();
+    final Histogram misses = new Histogram();
+    final AtomicLong errors = new AtomicLong();
+
+    public LoadGenerator(String host, int port, double hitRatio, int hotNames, String profile) {
+        this.host = host;
+        this.port = port;
+        this.hitRatio = hitRatio;
+        this.hotNames = hotNames;
+        this.profile = profile;
+    }
+
+    /**
+     * Requests every hot name once so that later requests for them are cache hits.
+     */
+    public void prime() throws InterruptedException {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < hotNames; i++) {
+                String name = "hot" + i;
+                clients.submit(() -> request(name));
+            }
+        }
+    }
+
+    public void closedLoop(int connections, long durationNanos, long delayMillis) throws InterruptedException {
+        long end = System.nanoTime() + durationNanos;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        send(System.nanoTime());
+                        if (delayMillis > 0) {
+                            Thread.sleep(delayMillis);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * At most {@code connections} requests are in flight; when they are all busy the schedule keeps
+     * running and the delayed requests are charged for the wait.
+     */
+    public void openLoop(double rate, int connections, long durationNanos) throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        Semaphore inFlight = new Semaphore(connections);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + i * interval;
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                clients.submit(() -> {
+                    try {
+                        send(scheduled);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void send(long startedAt) {
+        boolean hot = ThreadLocalRandom.current().nextDouble() < hitRatio;
+        String name = hot
+                ? "hot" + ThreadLocalRandom.current().nextInt(hotNames)
+                : "load-" + runId + "-" + unique.incrementAndGet();
+        if (request(name)) {
+            (hot ? hits : misses).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+        } else {
+            errors.incrementAndGet();
+        }
+    }
+
+    private boolean request(String name) {
+        String line = (profile == null ? name : "@" + profile + " " + name) + "\n";
+        try (Socket socket = new Socket(host, port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            socket.shutdownOutput();
+            InputStream in = socket.getInputStream();
+            byte[] head = in.readNBytes(4);
+            if (head.length == 0 || new String(head, StandardCharsets.US_ASCII).equals("ERR ")) {
+                return false;
+            }
+            in.transferTo(OutputStream.nullOutputStream());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -1,15 +1,63 @@
-import java.net.InetAddress;
-import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
-// click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
-    public static void main(String[] args) {
-        if (args.length != 3) {
-            System.err.println("Usage: java Main <ip> <port> <delay>");
+    private static final String USAGE = """
+            Usage: java Main <ip> <port> [options]
+              --mode closed|open     closed: fixed clients; open: fixed request rate (default closed)
+              --connections N        concurrent connections, the cap on in-flight requests in open mode (default 64)
+              --rate R               requests per second in open mode (default 100)
+              --duration S           seconds to run (default 10)
+              --delay MS             pause between requests of one client in closed mode (default 0)
+              --hit-ratio F          share of requests for repeated names, 0..1 (default 0.9)
+              --hot-names N          number of repeated names (default 100)
+              --profile P            key profile to request, e.g. ED25519 (default: server default)""";
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2 || args.length % 2 != 0) {
+            System.err.println(USAGE);
             System.exit(1);
         }
-        int delay = Integer.parseInt(args[0]);
-        try (Socket clientSocket = new)
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        String mode = options.getOrDefault("--mode", "closed");
+        int connections = Integer.parseInt(options.getOrDefault("--connections", "64"));
+        double rate = Double.parseDouble(options.getOrDefault("--rate", "100"));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("--duration", "10")));
+        long delay = Long.parseLong(options.getOrDefault("--delay", "0"));
+        double hitRatio = Double.parseDouble(options.getOrDefault("--hit-ratio", "0.9"));
+        int hotNames = Integer.parseInt(options.getOrDefault("--hot-names", "100"));
+
+        LoadGenerator generator = new LoadGenerator(args[0], Integer.parseInt(args[1]), hitRatio, hotNames,
+                options.get("--profile"));
+        System.out.println("Priming " + hotNames + " names...");
+        generator.prime();
+
+        System.out.println("Running " + mode + " loop for " + TimeUnit.NANOSECONDS.toSeconds(duration) + "s...");
+        long start = System.nanoTime();
+        switch (mode) {
+            case "closed" -> generator.closedLoop(connections, duration, delay);
+            case "open" -> generator.openLoop(rate, connections, duration);
+            default -> {
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long completed = generator.hits.count() + generator.misses.count();
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s%n",
+                completed, generator.errors.get(), completed / seconds);
+        report("hits", generator.hits);
+        report("misses", generator.misses);
+    }
+
+    private static void report(String label, Histogram histogram) {
+        System.out.printf("%-6s count=%d mean=%.0fus p50=%dus p99=%dus p999=%dus max=%dus%n",
+                label, histogram.count(), histogram.mean(), histogram.percentile(0.5),
+                histogram.percentile(0.99), histogram.percentile(0.999), histogram.max());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package ru.nsu.chuvashov;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+
+/**
+ * Server configurations shared by the benchmarks: no persistent store, a single enabled profile.
+ */
+final class BenchmarkServers {
+
+    private BenchmarkServers() {
+    }
+
+    static Properties config(String profile, int workers, String transport) {
+        Properties config = Server.loadConfig();
+        config.setProperty("profiles", profile);
+        config.setProperty("profile.default", profile);
+        config.setProperty("lane.threads", String.valueOf(workers));
+        config.setProperty("store.path", "");
+        config.setProperty("server.transport", transport);
+        return config;
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
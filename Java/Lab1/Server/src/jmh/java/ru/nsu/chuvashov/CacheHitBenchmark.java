@@ -0,0 +1,56 @@
+package ru.nsu.chuvashov;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache-hit path of a request: profile parsing, cache lookup and fetching the prebuilt response bytes,
+ * with one and with several concurrent clients contending on the cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheHitBenchmark {
+    @Param({"1024"})
+    public int names;
+
+    private Server server;
+    private String[] requests;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new Server(0, 2, BenchmarkServers.config("ED25519", 2, "blocking"));
+        requests = new String[names];
+        for (int i = 0; i < names; i++) {
+            requests[i] = "hot" + i;
+            server.getFuture(requests[i], "bench").join();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] singleClient() {
+        return hit();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public byte[] concurrentClients() {
+        return hit();
+    }
+
+    private byte[] hit() {
+        String name = requests[ThreadLocalRandom.current().nextInt(requests.length)];
+        return Server.response(server.getFuture(name, "bench"));
+    }
+}
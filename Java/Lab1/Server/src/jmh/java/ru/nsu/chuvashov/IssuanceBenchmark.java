@@ -0,0 +1,89 @@
+package ru.nsu.chuvashov;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.*;
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Certificates signed per second on one thread with pregenerated subject keys, comparing the original
+ * per-certificate setup of signer, RNG and converter against a long-lived {@link CertificateIssuer}.
+ * Run with {@code -t N} to see how both scale across cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IssuanceBenchmark {
+    @Param({"P_256", "ED25519", "RSA_2048"})
+    public String profile;
+
+    private X500Name issuerName;
+    private PrivateKey signingKey;
+    private KeyPair[] subjects;
+
+    @State(Scope.Thread)
+    public static class Worker {
+        CertificateIssuer issuer;
+        int next;
+
+        @Setup
+        public void setUp(IssuanceBenchmark benchmark) throws Exception {
+            issuer = new CertificateIssuer(benchmark.issuerName, benchmark.signingKey);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        issuerName = new X500Name("CN=BENCH");
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(4096);
+        signingKey = rsa.generateKeyPair().getPrivate();
+        KeyPairGenerator generator = KeyProfile.valueOf(profile).newGenerator();
+        subjects = new KeyPair[64];
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = generator.generateKeyPair();
+        }
+    }
+
+    @Benchmark
+    public ClientKey reusedWorkerState(Worker worker) throws Exception {
+        int i = worker.next++ & (subjects.length - 1);
+        return worker.issuer.issue("name" + i, subjects[i], new Date());
+    }
+
+    @Benchmark
+    public ClientKey freshStatePerCertificate(Worker worker) throws Exception {
+        int i = worker.next++ & (subjects.length - 1);
+        KeyPair pair = subjects[i];
+        JcaX509CertificateConverter certConverter = new JcaX509CertificateConverter().setProvider("BC");
+        X500Name subject = new X500Name("CN=name" + i);
+        BigInteger serial = new BigInteger(64, new SecureRandom());
+        Date notBefore = new Date();
+        Date notAfter = new Date(notBefore.getTime() + CertificateIssuer.VALIDITY_MILLIS);
+        SubjectPublicKeyInfo subPubKeyInfo = SubjectPublicKeyInfo.getInstance(pair.getPublic().getEncoded());
+        X509v3CertificateBuilder certBuilder = new X509v3CertificateBuilder(
+                issuerName, serial, notBefore, notAfter, subject, subPubKeyInfo);
+        ContentSigner signer = new JcaContentSignerBuilder("SHA256withRSA")
+                .setProvider("BC")
+                .build(signingKey);
+        return ClientKey.of(pair.getPublic(), certConverter.getCertificate(certBuilder.build(signer)));
+    }
+}
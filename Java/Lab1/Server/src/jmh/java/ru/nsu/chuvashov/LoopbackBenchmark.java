@@ -0,0 +1,113 @@
+package ru.nsu.chuvashov;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end one-shot requests over loopback: connect, send a cached name, read the PEM until the
+ * server closes. Each invocation runs {@code clients} such requests concurrently, so the score shows
+ * how both transports cope with many simultaneous connections. Scores are per request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoopbackBenchmark {
+    private static final int NAMES = 256;
+
+    @Param({"blocking", "nio"})
+    public String transport;
+
+    @Param({"1", "16", "64"})
+    public int clients;
+
+    private Server server;
+    private int port;
+    private ExecutorService requesters;
+    private byte[][] requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        port = BenchmarkServers.freePort();
+        server = new Server(port, 2, BenchmarkServers.config("ED25519", 2, transport));
+        requests = new byte[NAMES][];
+        for (int i = 0; i < NAMES; i++) {
+            String name = "loop" + i;
+            server.getFuture(name, "bench").join();
+            requests[i] = (name + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+        Thread acceptor = new Thread(server::start, "bench-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        awaitListening();
+        requesters = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        requesters.shutdownNow();
+        server.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(64)
+    public long oneShotRequests() throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(64);
+        for (int i = 0; i < 64; i += clients) {
+            responses.clear();
+            for (int c = 0; c < clients; c++) {
+                byte[] request = requests[next++ & (NAMES - 1)];
+                responses.add(requesters.submit(() -> request(request)));
+            }
+            for (Future<Integer> response : responses) {
+                response.get();
+            }
+        }
+        return next;
+    }
+
+    private int request(byte[] request) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request);
+            out.flush();
+            socket.shutdownOutput();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            int total = 0;
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                total += read;
+            }
+            if (total == 0) {
+                throw new IOException("Empty response");
+            }
+            return total;
+        }
+    }
+
+    private void awaitListening() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try {
+                new Socket("localhost", port).close();
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("Server did not start listening on port " + port);
+    }
+}
@@ -0,0 +1,79 @@
+package ru.nsu.chuvashov;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fresh issuance through the scheduler and worker lane: every invocation requests {@value #BATCH}
+ * names never seen before and waits for all of them, so keys come from the pool or from fallback
+ * generation exactly as in production. Scores are per certificate. {@code keygenAndSign} is the
+ * same work on the calling thread without the scheduler, as a baseline for the lane overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkerBenchmark {
+    static final int BATCH = 32;
+
+    @Param({"ED25519", "P_256", "RSA_2048"})
+    public String profile;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private Server server;
+    private long next;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new Server(0, workers, BenchmarkServers.config(profile, workers, "blocking"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void issue() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            futures[i] = server.getFuture("fresh" + next++, "bench");
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ClientKey keygenAndSign(IssuerState state) throws Exception {
+        return state.issuer.issue("direct" + state.next++, state.generator.generateKeyPair(), new Date());
+    }
+
+    @State(Scope.Thread)
+    public static class IssuerState {
+        CertificateIssuer issuer;
+        KeyPairGenerator generator;
+        long next;
+
+        @Setup
+        public void setUp(WorkerBenchmark benchmark) throws Exception {
+            Security.addProvider(new BouncyCastleProvider());
+            KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+            rsa.initialize(4096);
+            issuer = new CertificateIssuer(new X500Name("CN=BENCH"), rsa.generateKeyPair().getPrivate());
+            generator = KeyProfile.valueOf(benchmark.profile).newGenerator();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.nsu.chuvashov;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request log written by a background thread. Callers never block: lines over the per-second rate or
+ * beyond the queue capacity are dropped and reported as a count. Formatting happens on the log thread.
+ */
+public class AsyncLog {
+    private static final int CAPACITY = 4096;
+
+    private record Line(long at, String format, Object[] args) {
+    }
+
+    private final int ratePerSecond;
+    private final BlockingQueue<Line> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+
+    public AsyncLog(int ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        writer = Thread.ofPlatform().daemon().name("async-log").start(this::write);
+    }
+
+    public void log(String format, Object... args) {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            admitted.set(0);
+        }
+        if (admitted.incrementAndGet() > ratePerSecond
+                || !queue.offer(new Line(System.currentTimeMillis(), format, args))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public void close() {
+        writer.interrupt();
+    }
+
+    private void write() {
+        long reported = 0;
+        try {
+            while (true) {
+                Line line = queue.take();
+                long suppressed = dropped.get();
+                if (suppressed != reported) {
+                    System.out.println("(" + (suppressed - reported) + " log lines suppressed)");
+                    reported = suppressed;
+                }
+                System.out.println(String.format(line.format(), line.args()) + " at " + line.at());
+            }
+        } catch (InterruptedException e) {
+            for (Line line; (line = queue.poll()) != null; ) {
+                System.out.println(String.format(line.format(), line.args()) + " at " + line.at());
+            }
+        }
+    }
+}
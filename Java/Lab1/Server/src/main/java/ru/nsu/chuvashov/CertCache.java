@@ -0,0 +1,124 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * LRU cache of issued keys bounded by entry count and by the size of the encoded responses.
+ * A completed entry expires together with its certificate. In-flight futures are never evicted, so
+ * concurrent requests for the same name keep joining a single issuance.
+ */
+public class CertCache {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private static final class Entry {
+        final CompletableFuture<ClientKey> future;
+        long weight;
+        long expiresAt = Long.MAX_VALUE;
+
+        Entry(CompletableFuture<ClientKey> future) {
+            this.future = future;
+        }
+    }
+
+    public CertCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached or in-flight future for {@code name}. On a miss a placeholder is installed
+     * under the lock and {@code loader} runs outside it, so a slow store read or a blocked scheduler
+     * never stalls lookups for other names.
+     */
+    public CompletableFuture<ClientKey> get(String name, Function<String, CompletableFuture<ClientKey>> loader) {
+        CompletableFuture<ClientKey> future = new CompletableFuture<>();
+        synchronized (this) {
+            Entry entry = entries.get(name);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.future;
+            }
+            if (entry != null) {
+                expirations.incrementAndGet();
+                remove(name, entry);
+            }
+            misses.incrementAndGet();
+            entries.put(name, new Entry(future));
+            evict();
+        }
+        future.whenComplete((key, error) -> completed(name, future, key));
+        try {
+            loader.apply(name).whenComplete((key, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public String stats() {
+        return String.format("cache: size=%d weight=%d hits=%d misses=%d evictions=%d expirations=%d",
+                size(), weight(), hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    private synchronized void completed(String name, CompletableFuture<ClientKey> future, ClientKey key) {
+        Entry entry = entries.get(name);
+        if (entry == null || entry.future != future) {
+            return;
+        }
+        if (key == null) {
+            remove(name, entry);
+            return;
+        }
+        entry.weight = key.response().length;
+        entry.expiresAt = key.certificate().getNotAfter().getTime();
+        weight += entry.weight;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (!entry.future.isDone()) {
+                continue;
+            }
+            it.remove();
+            weight -= entry.weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String name, Entry entry) {
+        entries.remove(name);
+        weight -= entry.weight;
+    }
+}
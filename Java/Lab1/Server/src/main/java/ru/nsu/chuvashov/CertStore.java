@@ -0,0 +1,372 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of issued keys. Every record is {@code magic, length, body, crc32} where the body holds
+ * the name, the key algorithm, the DER encoded public key and the DER encoded certificate. The file is
+ * memory-mapped and indexed on first use; a torn record at the tail is cut off, so a crash during an
+ * append only loses that record. Compaction rewrites the live records into a temporary file and
+ * atomically renames it over the store. Writers hold the store's monitor; lookups read a volatile
+ * snapshot of channel, mapping and index and never wait for an append's fsync or for compaction.
+ */
+public class CertStore implements Closeable {
+    private static final int MAGIC = 0x4345524B;
+    private static final int HEADER = 8;
+    private static final int TRAILER = 4;
+
+    private final Path path;
+    private final Path compactPath;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private Map<String, Long> index;
+    private volatile View view;
+    private long end;
+    private long dead;
+
+    /**
+     * Channel, mapping and index of one version of the file. Appends only add to the index after the
+     * record is on disk; compaction publishes a new view instead of changing this one.
+     */
+    private record View(FileChannel channel, MappedByteBuffer mapped, Map<String, Long> index) {
+        /**
+         * Reads a record body through the mapping if the whole record lies inside it, and from the channel
+         * otherwise; records appended after the file was mapped may start inside it and end past it.
+         */
+        ByteBuffer body(long offset) throws IOException {
+            if (offset + HEADER <= mapped.limit()) {
+                int length = mapped.getInt((int) offset + 4);
+                if (offset + HEADER + length <= mapped.limit()) {
+                    return mapped.slice((int) offset + HEADER, length);
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            channel.read(header, offset);
+            ByteBuffer body = ByteBuffer.allocate(header.getInt(4));
+            while (body.hasRemaining()) {
+                channel.read(body, offset + HEADER + body.position());
+            }
+            return body.flip();
+        }
+    }
+
+    public CertStore(Path path) throws IOException {
+        this.path = path;
+        this.compactPath = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compactPath);
+        channel = open(path);
+    }
+
+    public ClientKey get(String name) {
+        try {
+            while (true) {
+                View current = view();
+                Long offset = current.index().get(name);
+                if (offset == null) {
+                    return null;
+                }
+                try {
+                    ClientKey key = decode(current.body(offset));
+                    return key.certificate().getNotAfter().before(new Date()) ? null : key;
+                } catch (ClosedChannelException e) {
+                    if (view == current) {
+                        throw e;
+                    }
+                    // compacted while reading; look the name up again in the new file
+                }
+            }
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            System.err.println("Error reading stored key for " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized void append(String name, ClientKey key) throws IOException {
+        Map<String, Long> idx = index();
+        ByteBuffer record = record(name, key);
+        long offset = end;
+        while (record.hasRemaining()) {
+            channel.write(record, end + record.position());
+        }
+        channel.force(false);
+        end += record.limit();
+        if (idx.put(name, offset) != null) {
+            dead++;
+        }
+    }
+
+    public int size() throws IOException {
+        return view().index().size();
+    }
+
+    /**
+     * Loads the index eagerly, re-keys records stored under bare names and compacts the file if more than
+     * half of it is overwritten records, or right after re-keying so that the bare names are gone for good.
+     * Lookups only wait for the index scan, not for the re-keying or the compaction.
+     */
+    public synchronized void load() throws IOException {
+        index();
+        if (migrateBareNames() > 0 || dead > 0 && dead >= index.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Stores written before key profiles existed keyed records by the bare name. Each such record is
+     * appended again under {@link KeyProfile#cacheKey} for the profile its key belongs to, and the old one
+     * is left for compaction. Returns the number of records re-keyed.
+     */
+    private int migrateBareNames() throws IOException {
+        int migrated = 0;
+        for (String name : List.copyOf(index.keySet())) {
+            if (KeyProfile.isCacheKey(name)) {
+                continue;
+            }
+            ClientKey key;
+            try {
+                key = decode(view.body(index.get(name)));
+            } catch (GeneralSecurityException | RuntimeException e) {
+                continue;
+            }
+            KeyProfile profile = KeyProfile.of(key.key());
+            if (profile == null) {
+                continue;
+            }
+            if (!index.containsKey(profile.cacheKey(name))) {
+                append(profile.cacheKey(name), key);
+            }
+            index.remove(name);
+            dead++;
+            migrated++;
+        }
+        if (migrated > 0) {
+            System.out.println("Re-keyed " + migrated + " stored certificates by key profile");
+        }
+        return migrated;
+    }
+
+    /**
+     * Writes the live records to a temporary file, syncs and maps it, and only then renames it over the store
+     * and swaps it in. If anything fails before the rename the temporary file is deleted and the store keeps
+     * working on the old file.
+     */
+    public synchronized void compact() throws IOException {
+        Map<String, Long> idx = index();
+        Date now = new Date();
+        Map<String, Long> compacted = new ConcurrentHashMap<>();
+        long written = 0;
+        FileChannel out = FileChannel.open(compactPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean moved = false;
+        try {
+            for (Map.Entry<String, Long> entry : idx.entrySet()) {
+                ByteBuffer body = view.body(entry.getValue());
+                try {
+                    if (decode(body.duplicate()).certificate().getNotAfter().before(now)) {
+                        continue;
+                    }
+                } catch (GeneralSecurityException e) {
+                    continue;
+                }
+                ByteBuffer record = frame(body);
+                compacted.put(entry.getKey(), written);
+                while (record.hasRemaining()) {
+                    written += out.write(record);
+                }
+            }
+            out.force(true);
+            MappedByteBuffer remapped = map(out);
+            Files.move(compactPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+            // the open channel follows the renamed file, nothing is reopened
+            FileChannel old = channel;
+            channel = out;
+            mapped = remapped;
+            index = compacted;
+            end = written;
+            dead = 0;
+            view = new View(channel, mapped, index);
+            old.close();
+        } finally {
+            if (!moved) {
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(compactPath);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+
+    private View view() throws IOException {
+        View current = view;
+        if (current == null) {
+            synchronized (this) {
+                index();
+                current = view;
+            }
+        }
+        return current;
+    }
+
+    private Map<String, Long> index() throws IOException {
+        if (index != null) {
+            return index;
+        }
+        remap();
+        Map<String, Long> idx = new ConcurrentHashMap<>();
+        ByteBuffer buffer = mapped.duplicate();
+        long offset = 0;
+        while (buffer.remaining() >= HEADER + TRAILER) {
+            int position = buffer.position();
+            if (buffer.getInt() != MAGIC) {
+                break;
+            }
+            int length = buffer.getInt();
+            if (length < 0 || buffer.remaining() < length + TRAILER) {
+                break;
+            }
+            ByteBuffer body = buffer.slice(position + HEADER, length);
+            buffer.position(position + HEADER + length);
+            if (buffer.getInt() != crc(body)) {
+                break;
+            }
+            if (idx.put(readString(body), offset) != null) {
+                dead++;
+            }
+            offset = buffer.position();
+        }
+        if (offset < channel.size()) {
+            if (channel.size() - offset > recordSize(buffer, (int) offset)) {
+                // more than one record follows the bad one: not a torn append but corruption, keep what is cut off
+                Path saved = path.resolveSibling(path.getFileName() + ".corrupt-" + offset);
+                try (FileChannel out = FileChannel.open(saved, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    channel.transferTo(offset, channel.size() - offset, out);
+                }
+                System.err.println("WARNING: certificate store " + path + " has a corrupt record at offset " + offset
+                        + "; dropping the " + (channel.size() - offset) + " bytes after it, saved to " + saved);
+            } else {
+                System.err.println("Truncating torn tail of " + path + " at offset " + offset);
+            }
+            channel.truncate(offset);
+            channel.force(true);
+            remap();
+        }
+        end = offset;
+        index = idx;
+        view = new View(channel, mapped, idx);
+        return idx;
+    }
+
+    private void remap() throws IOException {
+        mapped = map(channel);
+    }
+
+    private MappedByteBuffer map(FileChannel file) throws IOException {
+        long size = file.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Certificate store " + path + " is too large to map");
+        }
+        return file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Size of the record at {@code position} as far as its header tells, or 0 if the header is unreadable.
+     */
+    private static long recordSize(ByteBuffer buffer, int position) {
+        if (buffer.limit() - position < HEADER) {
+            return 0;
+        }
+        return HEADER + Math.max(0, buffer.getInt(position + 4)) + (long) TRAILER;
+    }
+
+    private static ClientKey decode(ByteBuffer body) throws GeneralSecurityException {
+        readString(body);
+        String algorithm = readString(body);
+        byte[] keyDer = new byte[body.getInt()];
+        body.get(keyDer);
+        byte[] certDer = new byte[body.getInt()];
+        body.get(certDer);
+        PublicKey key = KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(keyDer));
+        X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(certDer));
+        return ClientKey.of(key, certificate);
+    }
+
+    private static ByteBuffer record(String name, ClientKey key) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            byte[] keyDer = key.key().getEncoded();
+            byte[] certDer = key.certificate().getEncoded();
+            writeString(out, name);
+            writeString(out, key.key().getAlgorithm());
+            out.writeInt(keyDer.length);
+            out.write(keyDer);
+            out.writeInt(certDer.length);
+            out.write(certDer);
+        } catch (CertificateEncodingException e) {
+            throw new IOException(e);
+        }
+        return frame(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private static ByteBuffer frame(ByteBuffer body) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER + body.remaining() + TRAILER);
+        record.putInt(MAGIC).putInt(body.remaining());
+        int crc = crc(body);
+        record.put(body.duplicate()).putInt(crc);
+        return record.flip();
+    }
+
+    private static int crc(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.nsu.chuvashov;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.cert.CertificateException;
+import java.util.Date;
+
+/**
+ * Signs certificates for one worker thread. The signer, serial number generator and certificate
+ * converter are created once and reused; an instance must not be shared between threads.
+ */
+public class CertificateIssuer {
+    static final long VALIDITY_MILLIS = 365L * 24 * 60 * 60 * 1000;
+
+    private final X500Name issuer;
+    private final ContentSigner signer;
+    private final SecureRandom random = new SecureRandom();
+    private final JcaX509CertificateConverter converter = new JcaX509CertificateConverter().setProvider("BC");
+
+    public CertificateIssuer(X500Name issuer, PrivateKey signingKey) throws OperatorCreationException {
+        this.issuer = issuer;
+        this.signer = new JcaContentSignerBuilder("SHA256withRSA")
+                .setProvider("BC")
+                .build(signingKey);
+    }
+
+    public ClientKey issue(String name, KeyPair pair, Date notBefore) throws CertificateException {
+        X500Name subject = new X500NameBuilder(BCStyle.INSTANCE).addRDN(BCStyle.CN, name).build();
+        BigInteger serial = new BigInteger(64, random);
+        Date notAfter = new Date(notBefore.getTime() + VALIDITY_MILLIS);
+        SubjectPublicKeyInfo subPubKeyInfo = SubjectPublicKeyInfo.getInstance(pair.getPublic().getEncoded());
+
+        X509v3CertificateBuilder certBuilder = new X509v3CertificateBuilder(
+                issuer, serial, notBefore, notAfter, subject, subPubKeyInfo);
+        return ClientKey.of(pair.getPublic(), converter.getCertificate(certBuilder.build(signer)));
+    }
+}
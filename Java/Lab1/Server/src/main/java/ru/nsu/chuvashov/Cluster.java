@@ -0,0 +1,75 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Static cluster membership. Every node builds the same ring from the same peer list, so all of them
+ * agree on the owner of a name without talking to each other; only the owner issues it.
+ */
+public class Cluster {
+    /** Prefix of a request forwarded by another node, followed by the original requester and line. */
+    static final String FORWARD_PREFIX = "FWD ";
+
+    private final String self;
+    private final HashRing ring;
+    private final Map<String, Peer> peers = new HashMap<>();
+    private final Set<String> peerAddresses = new HashSet<>();
+
+    public Cluster(String self, List<String> nodes, int virtualNodes) {
+        if (!nodes.contains(self)) {
+            throw new IllegalArgumentException("Cluster peer list " + nodes + " does not contain this node " + self);
+        }
+        this.self = self;
+        this.ring = new HashRing(nodes, virtualNodes);
+        for (String node : nodes) {
+            if (!node.equals(self)) {
+                peers.put(node, new Peer(node));
+                String host = node.substring(0, node.lastIndexOf(':'));
+                try {
+                    for (InetAddress address : InetAddress.getAllByName(host)) {
+                        peerAddresses.add(Server.owner(address));
+                    }
+                } catch (UnknownHostException e) {
+                    System.err.println("Cannot resolve cluster peer " + node + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Owner of the key, or null when it is this node.
+     */
+    public String remoteOwner(String key) {
+        String owner = ring.owner(key);
+        return owner.equals(self) ? null : owner;
+    }
+
+    /**
+     * Whether a connection from this address may send forwarded requests, which name their own requester.
+     */
+    public boolean isPeer(String address) {
+        return peerAddresses.contains(address);
+    }
+
+    public CompletableFuture<ClientKey> forward(String node, String requester, String line) {
+        return peers.get(node).send(FORWARD_PREFIX + requester + " " + line);
+    }
+
+    public void close() {
+        peers.values().forEach(Peer::close);
+    }
+
+    @Override
+    public String toString() {
+        return "cluster node " + self + " with peers " + peers.keySet();
+    }
+}
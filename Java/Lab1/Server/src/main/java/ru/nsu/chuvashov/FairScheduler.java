@@ -0,0 +1,132 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.Task;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Strict priority between classes (0 is served first) and round-robin between owners within a class,
+ * so a client flooding the server with unique names only delays its own tasks. Both the total depth
+ * and the depth per owner are bounded.
+ */
+public class FairScheduler implements TaskScheduler {
+    private final int capacity;
+    private final int ownerCapacity;
+    private final Map<String, ArrayDeque<Task>>[] queues;
+    private final ArrayDeque<String>[] ready;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Histogram waitTimes = new Histogram();
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public FairScheduler(int capacity, int ownerCapacity, int priorities) {
+        this.capacity = capacity;
+        this.ownerCapacity = ownerCapacity;
+        this.queues = new Map[priorities];
+        this.ready = new ArrayDeque[priorities];
+        for (int i = 0; i < priorities; i++) {
+            queues[i] = new HashMap<>();
+            ready[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        int priority = Math.min(Math.max(task.priority(), 0), queues.length - 1);
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                return false;
+            }
+            ArrayDeque<Task> queue = queues[priority].get(task.owner());
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues[priority].put(task.owner(), queue);
+                ready[priority].add(task.owner());
+            } else if (queue.size() >= ownerCapacity) {
+                return false;
+            }
+            queue.add(task);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        Task task;
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            task = poll();
+            size--;
+        } finally {
+            lock.unlock();
+        }
+        waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - task.enqueuedAt()));
+        return task;
+    }
+
+    @Override
+    public int drainTo(Collection<Task> sink, int max) {
+        int drained = 0;
+        lock.lock();
+        try {
+            while (drained < max && size > 0) {
+                Task task = poll();
+                size--;
+                waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - task.enqueuedAt()));
+                sink.add(task);
+                drained++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Histogram waitTimes() {
+        return waitTimes;
+    }
+
+    private Task poll() {
+        for (int priority = 0; priority < ready.length; priority++) {
+            String owner = ready[priority].poll();
+            if (owner == null) {
+                continue;
+            }
+            ArrayDeque<Task> queue = queues[priority].get(owner);
+            Task task = queue.poll();
+            if (queue.isEmpty()) {
+                queues[priority].remove(owner);
+            } else {
+                ready[priority].add(owner);
+            }
+            return task;
+        }
+        throw new IllegalStateException("Scheduler size is positive but every queue is empty");
+    }
+}
@@ -0,0 +1,51 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.Task;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class FifoScheduler implements TaskScheduler {
+    private final BlockingQueue<Task> queue;
+    private final Histogram waitTimes = new Histogram();
+
+    public FifoScheduler(int capacity) {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(Task task) {
+        return queue.offer(task);
+    }
+
+    @Override
+    public Task take() throws InterruptedException {
+        Task task = queue.take();
+        waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - task.enqueuedAt()));
+        return task;
+    }
+
+    @Override
+    public int drainTo(Collection<Task> sink, int max) {
+        int drained = 0;
+        Task task;
+        while (drained < max && (task = queue.poll()) != null) {
+            waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - task.enqueuedAt()));
+            sink.add(task);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public Histogram waitTimes() {
+        return waitTimes;
+    }
+}
@@ -0,0 +1,177 @@
+package ru.nsu.chuvashov;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of pregenerated key pairs. Background threads of minimal priority refill it up to the
+ * high watermark whenever it drops to the low watermark, so workers usually only have to sign.
+ */
+public class KeyPool {
+    private final KeyProfile profile;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final BlockingQueue<KeyPair> pool;
+    /** Pairs in the pool plus pairs being generated for it; never exceeds the high watermark. */
+    private final AtomicInteger stocked = new AtomicInteger();
+    private final ExecutorService refillers;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final ThreadLocal<KeyPairGenerator> fallback;
+
+    private final Object refillLock = new Object();
+    private boolean refilling = true;
+    private long refillStartedAt = System.nanoTime();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refills = new AtomicLong();
+    private final AtomicLong lastRefillLag = new AtomicLong();
+    private final AtomicLong maxRefillLag = new AtomicLong();
+
+    public KeyPool(KeyProfile profile, int lowWatermark, int highWatermark, int threads)
+            throws NoSuchAlgorithmException {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark) {
+            throw new IllegalArgumentException("Key pool watermarks must satisfy 0 <= low < high");
+        }
+        this.profile = profile;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.pool = new ArrayBlockingQueue<>(highWatermark);
+        profile.newGenerator();
+        this.fallback = ThreadLocal.withInitial(() -> {
+            try {
+                return profile.newGenerator();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        refillers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "keypool-refill");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            refillers.submit(this::refiller);
+        }
+    }
+
+    /**
+     * Takes a pregenerated pair. When the pool is empty the pair is generated on the calling thread.
+     */
+    public KeyPair take() {
+        KeyPair pair = pool.poll();
+        if (pair != null) {
+            stocked.decrementAndGet();
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            pair = fallback.get().generateKeyPair();
+        }
+        if (pool.size() <= lowWatermark) {
+            requestRefill();
+        }
+        return pair;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public void shutdown() {
+        running.set(false);
+        synchronized (refillLock) {
+            refillLock.notifyAll();
+        }
+        refillers.shutdownNow();
+        try {
+            refillers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String stats() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return String.format("keypool %s: size=%d hits=%d misses=%d hitRate=%.3f refills=%d lastRefillLag=%dms maxRefillLag=%dms",
+                profile, pool.size(), hit, total - hit, total == 0 ? 1.0 : (double) hit / total,
+                refills.get(), lastRefillLag.get(), maxRefillLag.get());
+    }
+
+    private void requestRefill() {
+        synchronized (refillLock) {
+            if (!refilling) {
+                refilling = true;
+                refillStartedAt = System.nanoTime();
+                refillLock.notifyAll();
+            }
+        }
+    }
+
+    private void refiller() {
+        KeyPairGenerator generator;
+        try {
+            generator = profile.newGenerator();
+        } catch (NoSuchAlgorithmException e) {
+            System.err.println("Key pool refiller failed to start: " + e.getMessage());
+            return;
+        }
+        try {
+            while (running.get()) {
+                synchronized (refillLock) {
+                    while (running.get() && !refilling) {
+                        refillLock.wait();
+                    }
+                }
+                while (running.get() && reserve()) {
+                    KeyPair pair;
+                    try {
+                        pair = generator.generateKeyPair();
+                    } catch (RuntimeException e) {
+                        stocked.decrementAndGet();
+                        System.err.println("Key pool refiller failed to generate a " + profile + " key: " + e);
+                        // back off instead of spinning on a provider that keeps failing
+                        Thread.sleep(1000);
+                        continue;
+                    }
+                    pool.offer(pair);
+                }
+                finishRefill();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims a slot for one pair before it is generated, so refillers never overshoot the high
+     * watermark and throw away pairs the pool has no room for.
+     */
+    private boolean reserve() {
+        return stocked.getAndUpdate(n -> n < highWatermark ? n + 1 : n) < highWatermark;
+    }
+
+    private void finishRefill() {
+        synchronized (refillLock) {
+            if (!refilling || stocked.get() < highWatermark) {
+                return;
+            }
+            refilling = false;
+            long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - refillStartedAt);
+            refills.incrementAndGet();
+            lastRefillLag.set(lag);
+            maxRefillLag.accumulateAndGet(lag, Math::max);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.nsu.chuvashov;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Locale;
+
+/**
+ * Subject key types the server can issue. Each profile has its own cache keyspace and worker lane.
+ */
+public enum KeyProfile {
+    RSA_2048("RSA", 2048),
+    RSA_4096("RSA", 4096),
+    RSA_8192("RSA", 8192),
+    P_256("EC", 256),
+    ED25519("Ed25519", 255);
+
+    private final String algorithm;
+    private final int keySize;
+
+    KeyProfile(String algorithm, int keySize) {
+        this.algorithm = algorithm;
+        this.keySize = keySize;
+    }
+
+    public KeyPairGenerator newGenerator() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        try {
+            switch (this) {
+                case P_256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+                case ED25519 -> {
+                }
+                default -> generator.initialize(keySize);
+            }
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new NoSuchAlgorithmException(e);
+        }
+        return generator;
+    }
+
+    /**
+     * Key under which names issued with this profile are cached and stored.
+     */
+    public String cacheKey(String name) {
+        return name() + "/" + name;
+    }
+
+    /**
+     * Whether the key was made by {@link #cacheKey}; stores written before profiles existed hold bare names.
+     */
+    public static boolean isCacheKey(String key) {
+        int slash = key.indexOf('/');
+        if (slash < 0) {
+            return false;
+        }
+        String prefix = key.substring(0, slash);
+        for (KeyProfile profile : values()) {
+            if (profile.name().equals(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Profile that generates keys like this one, or null if none does.
+     */
+    public static KeyProfile of(PublicKey key) {
+        return switch (key.getAlgorithm()) {
+            case "RSA" -> {
+                int bits = ((RSAPublicKey) key).getModulus().bitLength();
+                for (KeyProfile profile : values()) {
+                    if (profile.algorithm.equals("RSA") && profile.keySize == bits) {
+                        yield profile;
+                    }
+                }
+                yield null;
+            }
+            case "EC", "ECDSA" -> P_256;
+            case "Ed25519", "EdDSA" -> ED25519;
+            default -> null;
+        };
+    }
+
+    /**
+     * Accepts both enum names and the usual spellings such as {@code RSA-4096}, {@code P-256} or {@code Ed25519}.
+     */
+    public static KeyProfile parse(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
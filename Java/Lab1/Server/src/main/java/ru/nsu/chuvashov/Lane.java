@@ -0,0 +1,11 @@
+package ru.nsu.chuvashov;
+
+/**
+ * Issuance pipeline of one key profile: its own task queue, key pool and workers.
+ */
+record Lane(KeyProfile profile, TaskScheduler scheduler, KeyPool keyPool, int threads) {
+
+    String stats() {
+        return keyPool.stats() + System.lineSeparator() + profile + " " + scheduler.stats();
+    }
+}
@@ -1,14 +1,6 @@
 package ru.nsu.chuvashov;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.nio.channels.Selector;
 import java.security.NoSuchAlgorithmException;
-import java.util.concurrent.Executors;
 
 public class Main {
     public static void main(String[] args) {
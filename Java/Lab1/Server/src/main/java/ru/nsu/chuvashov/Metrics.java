@@ -0,0 +1,109 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request latencies split by how the request was served, plus worker busy time. Recording is a few
+ * atomic increments; everything else is computed when the metrics are rendered.
+ */
+public class Metrics {
+
+    public enum Outcome {
+        /** Completed entry already in the cache. */
+        HIT,
+        /** Joined an issuance another request started. */
+        JOIN,
+        /** Loaded from the certificate store. */
+        STORE,
+        /** Issued a new certificate. */
+        ISSUE,
+        /** Answered by the cluster node owning the name. */
+        FORWARD
+    }
+
+    private final Map<Outcome, Histogram> latencies = new EnumMap<>(Outcome.class);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final long startedAt = System.nanoTime();
+
+    public Metrics() {
+        for (Outcome outcome : Outcome.values()) {
+            latencies.put(outcome, new Histogram());
+        }
+    }
+
+    /**
+     * Records the latency of a request started at {@code start} (nanoTime) once its future completes.
+     * Failed requests are only counted.
+     */
+    public void track(Outcome outcome, CompletableFuture<ClientKey> future, long start) {
+        if (future.isDone()) {
+            record(outcome, future.isCompletedExceptionally(), start);
+        } else {
+            future.whenComplete((key, error) -> record(outcome, error != null, start));
+        }
+    }
+
+    public void workerBusy(long nanos) {
+        busyNanos.add(nanos);
+    }
+
+    public Histogram latency(Outcome outcome) {
+        return latencies.get(outcome);
+    }
+
+    /**
+     * Plain-text exposition, one {@code name{labels} value} per line. Latencies are in microseconds.
+     */
+    String render(Collection<Lane> lanes, CertCache cache) {
+        StringBuilder out = new StringBuilder();
+        for (Outcome outcome : Outcome.values()) {
+            Histogram histogram = latencies.get(outcome);
+            String label = "{outcome=\"" + outcome.name().toLowerCase() + "\"";
+            line(out, "request_latency_us_count" + label + "}", histogram.count());
+            line(out, "request_latency_us_mean" + label + "}", (long) histogram.mean());
+            for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+                line(out, "request_latency_us" + label + ",quantile=\"" + quantile + "\"}", histogram.percentile(quantile));
+            }
+            line(out, "request_latency_us_max" + label + "}", histogram.max());
+        }
+        line(out, "request_errors_total", errors.sum());
+
+        int threads = 0;
+        for (Lane lane : lanes) {
+            String label = "{profile=\"" + lane.profile() + "\"}";
+            line(out, "queue_depth" + label, lane.scheduler().size());
+            line(out, "queue_wait_us_p99" + label, lane.scheduler().waitTimes().percentile(0.99));
+            line(out, "keypool_size" + label, lane.keyPool().size());
+            line(out, "workers" + label, lane.threads());
+            threads += lane.threads();
+        }
+        long busy = busyNanos.sum();
+        long uptime = System.nanoTime() - startedAt;
+        out.append(String.format("worker_busy_seconds_total %.3f%n", busy / 1e9));
+        out.append(String.format("worker_utilisation %.4f%n", threads == 0 ? 0.0 : (double) busy / uptime / threads));
+
+        line(out, "cache_entries", cache.size());
+        line(out, "cache_weight_bytes", cache.weight());
+        return out.toString();
+    }
+
+    private void record(Outcome outcome, boolean failed, long start) {
+        if (failed) {
+            errors.increment();
+        } else {
+            latencies.get(outcome).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    private static void line(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+}
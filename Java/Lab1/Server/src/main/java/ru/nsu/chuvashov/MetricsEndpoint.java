@@ -0,0 +1,38 @@
+package ru.nsu.chuvashov;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Serves {@code GET /metrics} as plain text on the loopback interface only.
+ */
+public class MetricsEndpoint {
+    private final HttpServer http;
+
+    public MetricsEndpoint(int port, Supplier<String> metrics) throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/metrics", exchange -> {
+            byte[] body = metrics.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    public void start() {
+        http.start();
+        System.out.println("Metrics available at http://localhost:" + http.getAddress().getPort() + "/metrics");
+    }
+
+    public void stop() {
+        http.stop(0);
+    }
+}
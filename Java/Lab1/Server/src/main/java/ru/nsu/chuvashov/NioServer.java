@@ -0,0 +1,266 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Single-threaded selector front-end speaking the same protocols as the blocking transport.
+ * A connection borrows a pooled direct buffer only while it holds unparsed request bytes, so idle
+ * clients, pipelined ones included, cost a socket and a small attachment. Responses are queued as heap
+ * buffers wrapping the encoded bytes, so the JDK copies each one through a temporary direct buffer on write;
+ * keeping a direct copy per cached key would move the whole cache into direct memory.
+ */
+public class NioServer {
+    private static final int LINE_BUFFER_SIZE = 4096;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+
+    private final Server server;
+    private final int port;
+    private final AtomicBoolean running;
+    private final ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private ExecutorService lookups;
+
+    private static final class Connection {
+        final String owner;
+        ByteBuffer in;
+        Boolean pipelined;
+        boolean inputClosed;
+        final ArrayDeque<CompletableFuture<ClientKey>> pending = new ArrayDeque<>();
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+
+        Connection(String owner) {
+            this.owner = owner;
+        }
+    }
+
+    public NioServer(Server server, int port, AtomicBoolean running) {
+        this.server = server;
+        this.port = port;
+        this.running = running;
+    }
+
+    public void run() {
+        try (var selector = Selector.open();
+             var serverChannel = ServerSocketChannel.open();
+             var lookups = Executors.newVirtualThreadPerTaskExecutor()) {
+            this.selector = selector;
+            this.lookups = lookups;
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Server started on port " + port + " (nio)");
+            while (running.get()) {
+                selector.select(1000);
+                Runnable completion;
+                while ((completion = completions.poll()) != null) {
+                    completion.run();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept(serverChannel);
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            read(key);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(key);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Error handling client request: \n" + e.getMessage());
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("While working, server socket got: " + e);
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            String owner = channel.getRemoteAddress() instanceof InetSocketAddress address
+                    ? Server.owner(address.getAddress()) : "unknown";
+            channel.register(selector, SelectionKey.OP_READ, new Connection(owner));
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (connection.in == null) {
+            connection.in = acquire();
+        }
+        if (((SocketChannel) key.channel()).read(connection.in) < 0) {
+            connection.inputClosed = true;
+        }
+        parse(key, connection);
+        if (connection.in != null && !connection.in.hasRemaining()
+                && connection.pending.size() < Server.MAX_PIPELINE_DEPTH) {
+            close(key);
+            return;
+        }
+        write(key);
+    }
+
+    /**
+     * Turns buffered request lines into pending futures, at most one line unless the client asked for pipelining.
+     */
+    private void parse(SelectionKey key, Connection connection) {
+        while (connection.in != null && connection.pending.size() < Server.MAX_PIPELINE_DEPTH) {
+            String line = nextLine(connection.in, connection.inputClosed);
+            if (line == null) {
+                break;
+            }
+            if (connection.pipelined == null) {
+                connection.pipelined = line.equals(Server.PIPELINE_HANDSHAKE);
+                if (connection.pipelined) {
+                    continue;
+                }
+            }
+            // the lookup may read the certificate store, so it runs off the selector thread
+            CompletableFuture<ClientKey> future = CompletableFuture
+                    .supplyAsync(() -> server.getFuture(line, connection.owner), lookups)
+                    .thenCompose(Function.identity());
+            connection.pending.add(future);
+            future.whenComplete((result, error) -> {
+                completions.add(() -> flush(key));
+                selector.wakeup();
+            });
+            if (!connection.pipelined) {
+                connection.inputClosed = true;
+                break;
+            }
+        }
+        if (connection.in != null && (connection.in.position() == 0
+                || connection.inputClosed && connection.pipelined != Boolean.TRUE)) {
+            release(connection);
+        }
+    }
+
+    private void flush(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            while (!connection.pending.isEmpty() && connection.pending.peek().isDone()) {
+                CompletableFuture<ClientKey> future = connection.pending.poll();
+                if (connection.pipelined) {
+                    for (byte[] part : Server.frame(future)) {
+                        connection.out.add(ByteBuffer.wrap(part));
+                    }
+                } else {
+                    connection.out.add(ByteBuffer.wrap(Server.response(future)));
+                }
+            }
+            parse(key, connection);
+            write(key);
+        } catch (Exception e) {
+            System.err.println("Error handling client request: \n" + e.getMessage());
+            close(key);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        while (!connection.out.isEmpty()) {
+            channel.write(connection.out.peek());
+            if (connection.out.peek().hasRemaining()) {
+                break;
+            }
+            connection.out.poll();
+        }
+        if (connection.inputClosed && connection.pending.isEmpty() && connection.out.isEmpty()) {
+            close(key);
+            return;
+        }
+        int ops = 0;
+        if (!connection.inputClosed && connection.pending.size() < Server.MAX_PIPELINE_DEPTH) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (!connection.out.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * Removes the first line from the buffer, or everything read so far once the peer closed its side.
+     */
+    private static String nextLine(ByteBuffer in, boolean eof) {
+        int end = -1;
+        for (int i = 0; i < in.position(); i++) {
+            if (in.get(i) == '\n') {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            if (!eof || in.position() == 0) {
+                return null;
+            }
+            end = in.position();
+        }
+        int length = end > 0 && in.get(end - 1) == '\r' ? end - 1 : end;
+        byte[] bytes = new byte[length];
+        in.get(0, bytes);
+        in.flip().position(Math.min(end + 1, in.limit()));
+        in.compact();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(LINE_BUFFER_SIZE);
+    }
+
+    private void release(Connection connection) {
+        if (connection.in == null) {
+            return;
+        }
+        connection.in.clear();
+        if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+            bufferPool.push(connection.in);
+        }
+        connection.in = null;
+    }
+
+    private void close(SelectionKey key) {
+        release((Connection) key.attachment());
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            System.err.println("Error closing client: " + e.getMessage());
+        }
+    }
+}
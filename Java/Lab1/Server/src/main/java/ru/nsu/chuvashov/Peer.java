@@ -0,0 +1,178 @@
+package ru.nsu.chuvashov;
+
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.openssl.PEMParser;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import ru.nsu.chuvashov.serverdtos.ClientKey;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Pipelined connection to another cluster node. Requests are queued as they come and answered in
+ * order; a writer thread per connection opens it lazily and does all socket writes, so a peer that
+ * stops reading never blocks the caller or the thread reading its responses. The next request after
+ * a failure opens a new connection, and every request still waiting on the old one fails.
+ */
+public class Peer {
+    private final String address;
+    private final String host;
+    private final int port;
+    private Connection connection;
+
+    /**
+     * Lines are queued for the writer and their futures for the reader in the same order, under the
+     * peer's monitor, which is never held during socket I/O.
+     */
+    private final class Connection {
+        final LinkedBlockingQueue<String> outgoing = new LinkedBlockingQueue<>();
+        final ConcurrentLinkedQueue<CompletableFuture<ClientKey>> pending = new ConcurrentLinkedQueue<>();
+        final Thread writer = Thread.ofVirtual().name("peer-writer-" + address).unstarted(this::write);
+        volatile Socket socket;
+
+        private void write() {
+            try {
+                Socket connected = new Socket(host, port);
+                socket = connected;
+                synchronized (Peer.this) {
+                    if (connection != this) {
+                        throw new IOException("closed");
+                    }
+                }
+                connected.setTcpNoDelay(true);
+                OutputStream out = new BufferedOutputStream(connected.getOutputStream());
+                out.write((Server.PIPELINE_HANDSHAKE + "\n").getBytes(StandardCharsets.US_ASCII));
+                Thread.ofVirtual().name("peer-reader-" + address).start(() -> read(this, connected));
+                while (true) {
+                    out.write((outgoing.take() + "\n").getBytes(StandardCharsets.UTF_8));
+                    if (outgoing.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                fail(this, e);
+            }
+        }
+    }
+
+    public Peer(String address) {
+        int colon = address.lastIndexOf(':');
+        this.address = address;
+        this.host = address.substring(0, colon);
+        this.port = Integer.parseInt(address.substring(colon + 1));
+    }
+
+    /**
+     * Queues the request without blocking.
+     */
+    public CompletableFuture<ClientKey> send(String line) {
+        CompletableFuture<ClientKey> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (connection == null) {
+                connection = new Connection();
+                connection.writer.start();
+            }
+            connection.pending.add(future);
+            connection.outgoing.add(line);
+        }
+        return future;
+    }
+
+    public void close() {
+        Connection current;
+        synchronized (this) {
+            current = connection;
+        }
+        if (current != null) {
+            fail(current, new IOException("closed"));
+        }
+    }
+
+    private void read(Connection owner, Socket connected) {
+        try (InputStream in = new BufferedInputStream(connected.getInputStream())) {
+            String header;
+            while ((header = readHeader(in)) != null) {
+                int space = header.indexOf(' ');
+                byte[] payload = in.readNBytes(Integer.parseInt(header.substring(space + 1)));
+                CompletableFuture<ClientKey> future = owner.pending.poll();
+                if (future == null) {
+                    throw new IOException("unexpected response");
+                }
+                if (!header.startsWith("OK")) {
+                    future.completeExceptionally(new IllegalStateException(new String(payload, StandardCharsets.UTF_8)));
+                    continue;
+                }
+                try {
+                    future.complete(parse(payload));
+                } catch (IllegalStateException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+            throw new IOException("connection closed");
+        } catch (Exception e) {
+            fail(owner, e);
+        }
+    }
+
+    /**
+     * Retires the connection, so the next request opens a new one, and fails its outstanding requests.
+     */
+    private void fail(Connection failed, Exception cause) {
+        synchronized (this) {
+            if (connection == failed) {
+                connection = null;
+            }
+        }
+        failed.writer.interrupt();
+        Socket socket = failed.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        for (CompletableFuture<ClientKey> future; (future = failed.pending.poll()) != null; ) {
+            future.completeExceptionally(new IllegalStateException("peer " + address + " failed: " + cause.getMessage()));
+        }
+    }
+
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(16);
+        for (int b; (b = in.read()) != '\n'; ) {
+            if (b == -1) {
+                return null;
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Rebuilds the key from the owner's response, keeping the exact bytes for our own clients.
+     */
+    private static ClientKey parse(byte[] response) {
+        try (PEMParser parser = new PEMParser(new InputStreamReader(
+                new ByteArrayInputStream(response), StandardCharsets.UTF_8))) {
+            SubjectPublicKeyInfo key = (SubjectPublicKeyInfo) parser.readObject();
+            X509CertificateHolder certificate = (X509CertificateHolder) parser.readObject();
+            return new ClientKey(new JcaPEMKeyConverter().getPublicKey(key),
+                    new JcaX509CertificateConverter().setProvider("BC").getCertificate(certificate), response);
+        } catch (IOException | CertificateException | ClassCastException e) {
+            throw new IllegalStateException("malformed response from peer: " + e.getMessage());
+        }
+    }
+}
@@ -1,59 +1,75 @@
 package ru.nsu.chuvashov;
 
 import org.bouncycastle.asn1.x500.X500Name;
-import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
-import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.cert.X509v3CertificateBuilder;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
-import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.OperatorCreationException;
-import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import ru.nsu.chuvashov.serverdtos.ClientKey;
 import ru.nsu.chuvashov.serverdtos.Task;
 
 import java.io.*;
-import java.math.BigInteger;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.*;
-import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Server {
+    static final String PIPELINE_HANDSHAKE = "PIPELINE";
+    static final int MAX_PIPELINE_DEPTH = 1024;
+    private static final CompletableFuture<ClientKey> PIPELINE_END = new CompletableFuture<>();
+
     private final int port;
-    private final ConcurrentMap<String, CompletableFuture<ClientKey>> cache = new ConcurrentHashMap<>();
-    private final BlockingQueue<Task> queue;
+    private final String transport;
+    private final CertCache cache;
+    private final Map<KeyProfile, Lane> lanes = new EnumMap<>(KeyProfile.class);
+    private final KeyProfile defaultProfile;
+    private final Map<String, Integer> priorities = new HashMap<>();
+    private final int defaultPriority;
+    private final int batchSize;
     private final ExecutorService executor;
     private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Metrics metrics = new Metrics();
+    private final AsyncLog log;
+    private final int metricsPort;
+    private MetricsEndpoint metricsEndpoint;
 
     private final X500Name issuer;
     private final PrivateKey privateKey;
-    private final String configPath = "config.txt";
+    private static final String configPath = "config.txt";
     private final String issuerKey = "Mykey.pem";
 
-    private final KeyPairGenerator kpg;
+    private final CertStore store;
+    private final Cluster cluster;
 
     public Server(int port, int db_threadCount) throws NoSuchAlgorithmException {
+        this(port, db_threadCount, loadConfig());
+    }
+
+    public Server(int port, int db_threadCount, Properties config) throws NoSuchAlgorithmException {
         this.port = port;
-        queue = new LinkedBlockingQueue<>();
 
         Security.addProvider(new BouncyCastleProvider());
-        Properties config = new Properties();
-        try (InputStream fis = getClass().getClassLoader().getResourceAsStream(configPath)) {
-            config.load(fis);
-        } catch (IOException e) {
-            config = new Properties();
-            config.put("issuer.name", "CN=FATSUN");
-        }
-
         issuer = new X500Name(config.getProperty("issuer.name"));
+        transport = config.getProperty("server.transport", "blocking");
+        cache = new CertCache(Integer.parseInt(config.getProperty("cache.maxEntries", "100000")),
+                Long.parseLong(config.getProperty("cache.maxWeight", "268435456")));
+
+        defaultPriority = Integer.parseInt(config.getProperty("scheduler.defaultPriority", "1"));
+        batchSize = Math.max(1, Integer.parseInt(config.getProperty("worker.batchSize", "16")));
+        log = new AsyncLog(Integer.parseInt(config.getProperty("log.rate", "100")));
+        metricsPort = Integer.parseInt(config.getProperty("metrics.port", "-1"));
+        for (String name : config.stringPropertyNames()) {
+            if (name.startsWith("scheduler.priority.")) {
+                priorities.put(name.substring("scheduler.priority.".length()), Integer.parseInt(config.getProperty(name)));
+            }
+        }
 
         try (InputStream is = getClass().getClassLoader().getResourceAsStream(issuerKey);
              InputStreamReader isr = new InputStreamReader(Objects.requireNonNull(is));
@@ -66,16 +82,102 @@ public class Server {
             throw new RuntimeException("Error reading private key: " + ex.getMessage());
         }
 
-        kpg = KeyPairGenerator.getInstance("RSA");
-        kpg.initialize(8192);
-        executor = Executors.newFixedThreadPool(db_threadCount);
-        for (int i = 0; i < db_threadCount; i++) {
-            executor.submit(this::worker);
+        defaultProfile = KeyProfile.parse(config.getProperty("profile.default", "RSA_8192"));
+        for (String name : config.getProperty("profiles", defaultProfile.name()).split(",")) {
+            KeyProfile profile = KeyProfile.parse(name);
+            KeyPool keyPool = new KeyPool(profile,
+                    Integer.parseInt(profileProperty(config, profile, "keypool.low", "2")),
+                    Integer.parseInt(profileProperty(config, profile, "keypool.high", "8")),
+                    Integer.parseInt(profileProperty(config, profile, "keypool.threads", "1")));
+            int threads = Integer.parseInt(profileProperty(config, profile, "lane.threads", String.valueOf(db_threadCount)));
+            lanes.put(profile, new Lane(profile, newScheduler(config), keyPool, threads));
+        }
+        if (!lanes.containsKey(defaultProfile)) {
+            throw new IllegalArgumentException("Default key profile " + defaultProfile + " is not enabled");
+        }
+
+        String storePath = config.getProperty("store.path", "");
+        if (storePath.isBlank()) {
+            store = null;
+        } else {
+            try {
+                store = new CertStore(Path.of(storePath));
+            } catch (IOException e) {
+                throw new RuntimeException("Error opening certificate store: " + e.getMessage());
+            }
+            Thread.ofVirtual().start(this::loadStore);
+        }
+        String peers = config.getProperty("cluster.peers", "");
+        if (peers.isBlank()) {
+            cluster = null;
+        } else {
+            cluster = new Cluster(config.getProperty("cluster.self", "localhost:" + port),
+                    Arrays.stream(peers.split(",")).map(String::trim).toList(),
+                    Integer.parseInt(config.getProperty("cluster.virtualNodes", "128")));
+            System.out.println("Running as " + cluster);
+        }
+        executor = Executors.newFixedThreadPool(lanes.values().stream().mapToInt(Lane::threads).sum());
+        for (Lane lane : lanes.values()) {
+            for (int i = 0; i < lane.threads(); i++) {
+                executor.submit(() -> worker(lane));
+            }
         }
     }
 
+    /**
+     * Reads {@code config.txt}; a system property {@code keyserver.<key>} overrides {@code <key>}, so several
+     * local nodes can share one build, e.g. {@code -Dkeyserver.cluster.peers=localhost:5001,localhost:5002}.
+     */
+    public static Properties loadConfig() {
+        Properties config = new Properties();
+        try (InputStream fis = Server.class.getClassLoader().getResourceAsStream(configPath)) {
+            config.load(fis);
+        } catch (IOException e) {
+            config = new Properties();
+            config.put("issuer.name", "CN=FATSUN");
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("keyserver.")) {
+                config.setProperty(name.substring("keyserver.".length()), System.getProperty(name));
+            }
+        }
+        return config;
+    }
+
+    private static TaskScheduler newScheduler(Properties config) {
+        int capacity = Integer.parseInt(config.getProperty("scheduler.capacity", "10000"));
+        return switch (config.getProperty("scheduler", "fair")) {
+            case "fifo" -> new FifoScheduler(capacity);
+            case "fair" -> new FairScheduler(capacity,
+                    Integer.parseInt(config.getProperty("scheduler.clientCapacity", "1000")),
+                    Integer.parseInt(config.getProperty("scheduler.priorities", "2")));
+            default -> throw new IllegalArgumentException("Unknown scheduler: " + config.getProperty("scheduler"));
+        };
+    }
+
+    /**
+     * Looks up {@code <prefix>.<PROFILE>.<suffix>} first and falls back to {@code <prefix>.<suffix>}.
+     */
+    private static String profileProperty(Properties config, KeyProfile profile, String key, String defaultValue) {
+        int dot = key.indexOf('.');
+        String specific = key.substring(0, dot) + "." + profile.name() + key.substring(dot);
+        return config.getProperty(specific, config.getProperty(key, defaultValue));
+    }
+
     public void start() {
         Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+        if (metricsPort >= 0) {
+            try {
+                metricsEndpoint = new MetricsEndpoint(metricsPort, this::metrics);
+                metricsEndpoint.start();
+            } catch (IOException e) {
+                System.err.println("Error starting metrics endpoint: " + e.getMessage());
+            }
+        }
+        if (transport.equals("nio")) {
+            new NioServer(this, port, running).run();
+            return;
+        }
         try (var executor = Executors.newVirtualThreadPerTaskExecutor();
              var serverSocket = new ServerSocket(port)) {
             System.out.println("Server started on port " + port);
@@ -90,18 +192,21 @@ public class Server {
 
     private void handleClient(Socket clientSocket) {
         try (var in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            var out = new PrintWriter(new OutputStreamWriter(clientSocket.getOutputStream()), true)) {
+            var out = new BufferedOutputStream(clientSocket.getOutputStream())) {
             String input = in.readLine();
             if (input == null) return;
-            System.out.println(Thread.currentThread().getName() + " got word: " + input + " at " + System.currentTimeMillis());
-
-            ClientKey result = getFuture(input).join();
-            System.out.println(Thread.currentThread().getName() + " got result for " + input + " at " + System.currentTimeMillis());
-            out.println(keyToPem(result.key()));
-            out.println();
-            out.println(certToPem(result.certificate()));
-        } catch (IOException | CertificateEncodingException e) {
+            if (input.equals(PIPELINE_HANDSHAKE)) {
+                handlePipeline(clientSocket, in, out, owner(clientSocket.getInetAddress()));
+                return;
+            }
+            long start = System.nanoTime();
+            byte[] result = response(getFuture(input, owner(clientSocket.getInetAddress())));
+            log.log("thread #%d served %s in %dus", Thread.currentThread().threadId(), input, (System.nanoTime() - start) / 1000);
+            out.write(result);
+        } catch (IOException e) {
             System.err.println("Error handling client request: \n" +  e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
             try {
                 clientSocket.close();
@@ -111,58 +216,203 @@ public class Server {
         }
     }
 
-    private CompletableFuture<ClientKey> getFuture(String input) {
-        return cache.computeIfAbsent(input, key -> {
+    /**
+     * Persistent connection: every following line is a name, answered with a frame in request order.
+     * The reader runs ahead of the writer by at most {@link #MAX_PIPELINE_DEPTH} names. If the writer fails it
+     * closes the socket, drops the queue and interrupts the reader, which may be waiting for room in it.
+     */
+    private void handlePipeline(Socket clientSocket, BufferedReader in, OutputStream out, String owner) throws IOException, InterruptedException {
+        BlockingQueue<CompletableFuture<ClientKey>> pending = new ArrayBlockingQueue<>(MAX_PIPELINE_DEPTH);
+        Thread reader = Thread.currentThread();
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                while (true) {
+                    CompletableFuture<ClientKey> future = pending.take();
+                    if (future == PIPELINE_END) break;
+                    for (byte[] part : frame(future)) {
+                        out.write(part);
+                    }
+                    if (pending.isEmpty()) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Error writing pipelined response: " + e.getMessage());
+                try {
+                    clientSocket.close();
+                } catch (IOException ignored) {
+                }
+                pending.clear();
+                reader.interrupt();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            String input;
+            while ((input = in.readLine()) != null) {
+                pending.put(getFuture(input, owner));
+            }
+        } finally {
+            while (writer.isAlive() && !pending.offer(PIPELINE_END, 100, TimeUnit.MILLISECONDS)) {
+                // a full queue drains unless the writer has died
+            }
+            writer.join();
+        }
+    }
+
+    /**
+     * Resolves a request line, either {@code <name>} for the default profile or {@code @<profile> <name>}.
+     * In cluster mode a name owned by another node is forwarded to it, unless the line was itself forwarded.
+     * Forwarded lines are only accepted from the configured peers.
+     */
+    CompletableFuture<ClientKey> getFuture(String input, String owner) {
+        boolean forwarded = cluster != null && input.startsWith(Cluster.FORWARD_PREFIX);
+        if (forwarded && !cluster.isPeer(owner)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("forwarded request from a non-peer"));
+        }
+        if (forwarded) {
+            int space = input.indexOf(' ', Cluster.FORWARD_PREFIX.length());
+            if (space < 0) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("malformed forwarded request"));
+            }
+            owner = input.substring(Cluster.FORWARD_PREFIX.length(), space);
+            input = input.substring(space + 1);
+        }
+        KeyProfile profile = defaultProfile;
+        String name = input;
+        if (input.startsWith("@")) {
+            int space = input.indexOf(' ');
+            name = space < 0 ? "" : input.substring(space + 1);
+            try {
+                profile = KeyProfile.parse(input.substring(1, space < 0 ? input.length() : space));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("unknown key profile"));
+            }
+        }
+        Lane lane = lanes.get(profile);
+        if (lane == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("key profile " + profile + " is not enabled"));
+        }
+        long start = System.nanoTime();
+        String subject = name;
+        String requester = owner;
+        KeyProfile keyProfile = profile;
+        boolean local = cluster == null || forwarded;
+        Metrics.Outcome[] outcome = new Metrics.Outcome[1];
+        CompletableFuture<ClientKey> future = cache.get(profile.cacheKey(name), key -> {
+            ClientKey stored = store == null ? null : store.get(key);
+            if (stored != null) {
+                outcome[0] = Metrics.Outcome.STORE;
+                return CompletableFuture.completedFuture(stored);
+            }
+            String remote = local ? null : cluster.remoteOwner(key);
+            if (remote != null) {
+                // the loader runs outside the cache lock; the peer only queues it, its own writer thread does the I/O
+                outcome[0] = Metrics.Outcome.FORWARD;
+                return cluster.forward(remote, requester, "@" + keyProfile.name() + " " + subject);
+            }
+            outcome[0] = Metrics.Outcome.ISSUE;
             CompletableFuture<ClientKey> future1 = new CompletableFuture<>();
-            queue.offer(new Task(key, future1));
+            Task task = new Task(subject, future1, requester, priorities.getOrDefault(requester, defaultPriority));
+            if (!lane.scheduler().offer(task)) {
+                future1.completeExceptionally(new RejectedExecutionException("server busy"));
+            }
             return future1;
         });
+        if (outcome[0] == null) {
+            outcome[0] = future.isDone() ? Metrics.Outcome.HIT : Metrics.Outcome.JOIN;
+        }
+        metrics.track(outcome[0], future, start);
+        return future;
     }
 
-    private void worker() {
-        JcaX509CertificateConverter certConverter = new JcaX509CertificateConverter().setProvider("BC");
+    static String owner(InetAddress address) {
+        return address == null ? "unknown" : address.getHostAddress();
+    }
+
+    /**
+     * Takes a task, drains more without blocking while pregenerated keys last (up to {@code batchSize}
+     * in total) and issues them with this thread's own {@link CertificateIssuer}.
+     */
+    private void worker(Lane lane) {
+        CertificateIssuer certificateIssuer;
+        try {
+            certificateIssuer = new CertificateIssuer(issuer, privateKey);
+        } catch (OperatorCreationException e) {
+            System.err.println("Worker failed to create signer: " + e.getMessage());
+            return;
+        }
+        List<Task> batch = new ArrayList<>(batchSize);
         while (running.get()) {
-            Task task = null;
             try {
-                task = queue.take();
-                X500Name subject = new X500Name("CN=" + task.name());
-                KeyPair pair = kpg.generateKeyPair();
-
-                SecureRandom random = new SecureRandom();
-                BigInteger serial = new BigInteger(64, random);
-
-                Date notBefore = new Date();
-                Date notAfter = new Date(notBefore.getTime() + 365L * 24 * 60 * 60 * 1000);
-
-
-                SubjectPublicKeyInfo subPubKeyInfo = SubjectPublicKeyInfo.getInstance(pair.getPublic().getEncoded());
-
-                X509v3CertificateBuilder certBuilder = new X509v3CertificateBuilder(
-                        issuer, serial, notBefore, notAfter, subject, subPubKeyInfo);
-
-                ContentSigner signer = new JcaContentSignerBuilder("SHA256withRSA")
-                        .setProvider("BC")
-                        .build(privateKey);
-
-                X509CertificateHolder certHolder = certBuilder.build(signer);
-
-                X509Certificate cert = certConverter.getCertificate(certHolder);
-
-                task.client().complete(new ClientKey(pair.getPublic(), cert));
+                batch.add(lane.scheduler().take());
+                lane.scheduler().drainTo(batch, Math.min(batchSize - 1, lane.keyPool().size()));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
-            } catch (OperatorCreationException | CertificateException e) {
-                task.client().completeExceptionally(e);
-                cache.remove(task.name(), task.client());
             }
+            long busySince = System.nanoTime();
+            Date notBefore = new Date();
+            for (Task task : batch) {
+                String key = lane.profile().cacheKey(task.name());
+                try {
+                    ClientKey result = certificateIssuer.issue(task.name(), lane.keyPool().take(), notBefore);
+                    persist(key, result);
+                    task.client().complete(result);
+                } catch (CertificateException | RuntimeException e) {
+                    // fail only this task; the rest of the batch and the worker carry on,
+                    // and the cache drops the entry once its placeholder fails
+                    task.client().completeExceptionally(e);
+                }
+            }
+            batch.clear();
+            metrics.workerBusy(System.nanoTime() - busySince);
         }
         System.out.println("Worker stopped");
     }
 
+    String metrics() {
+        return metrics.render(lanes.values(), cache);
+    }
+
+    private void loadStore() {
+        try {
+            store.load();
+            System.out.println("Loaded " + store.size() + " stored certificates");
+        } catch (IOException e) {
+            System.err.println("Error loading certificate store: " + e.getMessage());
+        }
+    }
+
+    private void persist(String name, ClientKey key) {
+        if (store == null) return;
+        try {
+            store.append(name, key);
+        } catch (IOException e) {
+            System.err.println("Error storing certificate for " + name + ": " + e.getMessage());
+        }
+    }
+
     public void shutdown() {
         System.out.println("Shutting down server...");
         running.set(false);
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+        }
+        if (cluster != null) {
+            cluster.close();
+        }
+        for (Lane lane : lanes.values()) {
+            lane.keyPool().shutdown();
+            System.out.println(lane.stats());
+        }
+        System.out.println(cache.stats());
+        for (Metrics.Outcome outcome : Metrics.Outcome.values()) {
+            System.out.println("latency " + outcome + ": " + metrics.latency(outcome).summary("us"));
+        }
+        log.close();
         executor.shutdown();
         try {
             if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -172,18 +422,52 @@ public class Server {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing certificate store: " + e.getMessage());
+            }
+        }
     }
 
+    /**
+     * One-shot response: the PEM blocks, or a single {@code ERR <message>} line if issuance failed or was rejected.
+     */
+    static byte[] response(CompletableFuture<ClientKey> future) {
+        try {
+            return future.join().response();
+        } catch (CompletionException | CancellationException e) {
+            return ("ERR " + errorMessage(e) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        }
+    }
 
-    private String keyToPem(PublicKey key) {
-        Base64.Encoder mime = Base64.getMimeEncoder(64, "\n".getBytes());
-        String encoded = mime.encodeToString(key.getEncoded());
-        return "-----BEGIN PUBLIC KEY-----\n" + encoded + "\n-----END PUBLIC KEY-----";
+    /**
+     * Pipelined response: {@code OK <length>} or {@code ERR <length>} on its own line, then the payload.
+     */
+    static byte[][] frame(CompletableFuture<ClientKey> future) {
+        byte[] payload;
+        String status;
+        try {
+            payload = future.join().response();
+            status = "OK ";
+        } catch (CompletionException | CancellationException e) {
+            payload = errorMessage(e).getBytes(StandardCharsets.UTF_8);
+            status = "ERR ";
+        }
+        return new byte[][]{(status + payload.length + "\n").getBytes(StandardCharsets.US_ASCII), payload};
     }
 
-    private String certToPem(X509Certificate cert) throws CertificateEncodingException {
-        Base64.Encoder mime = Base64.getMimeEncoder(64, "\n".getBytes());
-        String encoded = mime.encodeToString(cert.getEncoded());
-        return "-----BEGIN CERTIFICATE-----\n" + encoded + "\n-----END CERTIFICATE-----";
+    /**
+     * Message sent to the client for a failed future: the message of the underlying exception, or its
+     * class name if it has none.
+     */
+    static String errorMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        String message = cause.getMessage();
+        return message == null ? cause.getClass().getSimpleName() : message;
     }
 }
@@ -0,0 +1,31 @@
+package ru.nsu.chuvashov;
+
+import ru.nsu.chuvashov.serverdtos.Task;
+
+import java.util.Collection;
+
+/**
+ * Queue of issuance tasks between the request handlers and the worker pool.
+ */
+public interface TaskScheduler {
+
+    /**
+     * Enqueues a task, returning false instead of blocking when the scheduler is full.
+     */
+    boolean offer(Task task);
+
+    Task take() throws InterruptedException;
+
+    /**
+     * Moves up to {@code max} already queued tasks into the sink without blocking.
+     */
+    int drainTo(Collection<Task> sink, int max);
+
+    int size();
+
+    Histogram waitTimes();
+
+    default String stats() {
+        return "scheduler: depth=" + size() + " wait " + waitTimes().summary("us");
+    }
+}
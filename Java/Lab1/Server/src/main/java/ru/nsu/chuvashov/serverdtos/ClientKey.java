@@ -1,8 +1,32 @@
 package ru.nsu.chuvashov.serverdtos;
 
+import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.Base64;
 
-public record ClientKey(PublicKey key, X509Certificate certificate) {
+/**
+ * Issued key together with the exact bytes sent to clients, encoded once when the key is created.
+ */
+public record ClientKey(PublicKey key, X509Certificate certificate, byte[] response) {
 
+    public static ClientKey of(PublicKey key, X509Certificate certificate) throws CertificateEncodingException {
+        String separator = System.lineSeparator();
+        byte[] response = (keyToPem(key) + separator + separator + certToPem(certificate) + separator)
+                .getBytes(StandardCharsets.UTF_8);
+        return new ClientKey(key, certificate, response);
+    }
+
+    private static String keyToPem(PublicKey key) {
+        Base64.Encoder mime = Base64.getMimeEncoder(64, "\n".getBytes());
+        String encoded = mime.encodeToString(key.getEncoded());
+        return "-----BEGIN PUBLIC KEY-----\n" + encoded + "\n-----END PUBLIC KEY-----";
+    }
+
+    private static String certToPem(X509Certificate cert) throws CertificateEncodingException {
+        Base64.Encoder mime = Base64.getMimeEncoder(64, "\n".getBytes());
+        String encoded = mime.encodeToString(cert.getEncoded());
+        return "-----BEGIN CERTIFICATE-----\n" + encoded + "\n-----END CERTIFICATE-----";
+    }
 }
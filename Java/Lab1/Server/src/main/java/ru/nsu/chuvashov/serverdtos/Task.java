@@ -2,5 +2,9 @@ package ru.nsu.chuvashov.serverdtos;
 
 import java.util.concurrent.CompletableFuture;
 
-public record Task(String name, CompletableFuture<ClientKey> client) {
+public record Task(String name, CompletableFuture<ClientKey> client, String owner, int priority, long enqueuedAt) {
+
+    public Task(String name, CompletableFuture<ClientKey> client, String owner, int priority) {
+        this(name, client, owner, priority, System.nanoTime());
+    }
 }
@@ -0,0 +1,117 @@
+package ru.nsu.chuvashov;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushers, readers and the list's own sorters running together on a list pre-filled with
+ * {@code initialSize} segments. The list only grows, so the pusher making the {@code maxPushes}-th push
+ * swaps in a fresh list; that rebuild is charged to its push. Reports pushes and full snapshot
+ * iterations per second, and swaps per second as the {@code swaps} counter. Sorter threads are a parameter;
+ * pusher and reader threads are set with {@code -tg <pushers>,<readers>,1}.
+ * The sorters' pauses are turned off. {@link ContentionLatencyBenchmark} runs the same group for latency.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dconcurrentll.pauses=false")
+@State(Scope.Group)
+public class ContentionBenchmark {
+    @Param({"LinkedList", "OptimisticLinkedList", "MergeSortList", "UnrolledLinkedList", "SynchronizedList",
+            "SkipListList"})
+    public String implementation;
+
+    @Param({"1", "2"})
+    public int sorters;
+
+    @Param({"1000"})
+    public int initialSize;
+
+    @Param({"100000"})
+    public int maxPushes;
+
+    private volatile ListHandle list;
+    private final AtomicInteger pushes = new AtomicInteger();
+    private List<String> initial;
+    private List<String> pushed;
+
+    @State(Scope.Thread)
+    public static class Pusher {
+        int next;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Swaps {
+        public long swaps;
+        ListHandle sampled;
+        long last;
+    }
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        initial = Workloads.segments(initialSize, 80, 7);
+        pushed = Workloads.segments(1 << 16, 80, 42);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Throwable {
+        list = freshList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Throwable {
+        list.stop();
+    }
+
+    private ListHandle freshList() throws Throwable {
+        ListHandle fresh = new ListHandle(implementation, sorters);
+        fresh.pushAll(initial);
+        pushes.set(0);
+        return fresh;
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(2)
+    public void push(Pusher pusher) throws Throwable {
+        ListHandle current = list;
+        current.push(pushed.get(pusher.next++ & (pushed.size() - 1)));
+        if (pushes.incrementAndGet() == maxPushes) {
+            list = freshList();
+            current.stop();
+        }
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void iterate(Blackhole blackhole) throws Throwable {
+        try (var snapshot = list.snapshot()) {
+            for (String item : snapshot) {
+                blackhole.consume(item);
+            }
+        }
+    }
+
+    /**
+     * Samples the swap counter about once a millisecond; only the {@code swaps} counter is meaningful.
+     */
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void monitor(Swaps counter) throws Throwable {
+        LockSupport.parkNanos(1_000_000);
+        ListHandle current = list;
+        long steps = current.steps();
+        counter.swaps += current == counter.sampled ? steps - counter.last : steps;
+        counter.sampled = current;
+        counter.last = steps;
+    }
+}
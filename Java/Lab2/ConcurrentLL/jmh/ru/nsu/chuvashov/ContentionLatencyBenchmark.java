@@ -0,0 +1,17 @@
+package ru.nsu.chuvashov;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link ContentionBenchmark} group sampled for latency instead of throughput: reports the
+ * distribution of single pushes and of full snapshot iterations while pushers and sorters run. JMH
+ * needs one mode for a whole group, so this lives in its own class. JMH does not report auxiliary
+ * counters in this mode, so there is no {@code swaps} counter, and the {@code monitor} samples are
+ * only its parking time.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContentionLatencyBenchmark extends ContentionBenchmark {
+}
@@ -0,0 +1,53 @@
+package ru.nsu.chuvashov;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from handing {@code size} shuffled segments to a fresh list until a snapshot of it is fully
+ * sorted, with the sorters' pauses turned off.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dconcurrentll.pauses=false")
+@State(Scope.Benchmark)
+public class ConvergenceBenchmark {
+    @Param({"LinkedList", "OptimisticLinkedList", "MergeSortList", "UnrolledLinkedList", "SynchronizedList",
+            "SkipListList"})
+    public String implementation;
+
+    @Param({"1", "2"})
+    public int sorters;
+
+    @Param({"500"})
+    public int size;
+
+    private List<String> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = Workloads.segments(size, 80, 7);
+    }
+
+    @Benchmark
+    public long timeToSorted() throws Throwable {
+        ListHandle list = new ListHandle(implementation, sorters);
+        try {
+            list.pushAll(items);
+            while (true) {
+                try (var snapshot = list.snapshot()) {
+                    if (ListHandle.isSorted(snapshot)) {
+                        return list.steps();
+                    }
+                }
+                Thread.sleep(1);
+            }
+        } finally {
+            list.stop();
+        }
+    }
+}
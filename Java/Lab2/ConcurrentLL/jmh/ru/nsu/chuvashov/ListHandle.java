@@ -0,0 +1,104 @@
+package ru.nsu.chuvashov;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Access to a list implementation from the default package, which benchmarks in a named package
+ * cannot reference directly. Any class implementing {@code ConcurrentStringList} with an
+ * {@code (int sorterThreads)} constructor, or a no-argument one if it has no sorters, can be
+ * benchmarked by its simple name.
+ */
+final class ListHandle {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private final Iterable<String> list;
+    private final MethodHandle push;
+    private final MethodHandle pushAll;
+    private final MethodHandle steps;
+    private final MethodHandle stop;
+    private final MethodHandle snapshot;
+
+    @SuppressWarnings("unchecked")
+    ListHandle(String implementation, int sorters) throws Throwable {
+        Class<?> type = Class.forName(implementation);
+        Object instance;
+        try {
+            instance = LOOKUP.findConstructor(type, MethodType.methodType(void.class, int.class)).invoke(sorters);
+        } catch (NoSuchMethodException e) {
+            instance = LOOKUP.findConstructor(type, MethodType.methodType(void.class)).invoke();
+        }
+        list = (Iterable<String>) instance;
+        push = LOOKUP.findVirtual(type, "push", MethodType.methodType(void.class, String.class)).bindTo(instance);
+        pushAll = LOOKUP.findVirtual(type, "pushAll", MethodType.methodType(void.class, List.class)).bindTo(instance);
+        steps = LOOKUP.findVirtual(type, "steps", MethodType.methodType(long.class)).bindTo(instance);
+        stop = LOOKUP.findVirtual(type, "stop", MethodType.methodType(void.class)).bindTo(instance);
+        snapshot = LOOKUP.findVirtual(type, "snapshot", MethodType.methodType(Class.forName("ConcurrentStringList$Snapshot")))
+                .bindTo(instance)
+                .asType(MethodType.methodType(AutoCloseable.class));
+    }
+
+    void push(String item) throws Throwable {
+        push.invokeExact(item);
+    }
+
+    void pushAll(List<String> items) throws Throwable {
+        pushAll.invokeExact(items);
+    }
+
+    long steps() throws Throwable {
+        return (long) steps.invokeExact();
+    }
+
+    void stop() throws Throwable {
+        stop.invokeExact();
+    }
+
+    /**
+     * Point-in-time view; close it when done. Mirrors {@code ConcurrentStringList.Snapshot}, whose
+     * {@code close} throws nothing.
+     */
+    interface Snapshot extends Iterable<String>, AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @SuppressWarnings("unchecked")
+    Snapshot snapshot() throws Throwable {
+        AutoCloseable view = (AutoCloseable) snapshot.invokeExact();
+        Iterable<String> items = (Iterable<String>) view;
+        return new Snapshot() {
+            @Override
+            public Iterator<String> iterator() {
+                return items.iterator();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    view.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    Iterable<String> list() {
+        return list;
+    }
+
+    static boolean isSorted(Iterable<String> items) {
+        String previous = null;
+        for (String item : items) {
+            if (previous != null && previous.compareTo(item) > 0) {
+                return false;
+            }
+            previous = item;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.nsu.chuvashov;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    /**
+     * Random ASCII segments of the given length, the same for a given seed.
+     */
+    static List<String> segments(int count, int length, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> items = new ArrayList<>(count);
+        char[] chars = new char[length];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            items.add(new String(chars));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a UTF-8 text file into a list the way {@link Main} treats stdin: every line is cut into
+ * segments of at most {@link #SEGMENT_LENGTH} characters and empty lines are skipped. The file is
+ * memory-mapped window by window, so files larger than 2 GB work, and segments are pushed in batches
+ * through {@link ConcurrentStringList#pushAll}.
+ */
+public class BulkLoader {
+    public static final int SEGMENT_LENGTH = 80;
+    private static final long WINDOW = 16L << 20;
+    private static final int BATCH = 4096;
+
+    private final ConcurrentStringList list;
+    private List<String> batch = new ArrayList<>(BATCH);
+    private final StringBuilder carry = new StringBuilder(SEGMENT_LENGTH);
+    private long segments;
+
+    public BulkLoader(ConcurrentStringList list) {
+        this.list = list;
+    }
+
+    /**
+     * Cuts a line into segments without copying the rest of the line for every piece.
+     */
+    public static List<String> segments(String line) {
+        List<String> result = new ArrayList<>(line.length() / SEGMENT_LENGTH + 1);
+        for (int i = 0; i < line.length(); i += SEGMENT_LENGTH) {
+            result.add(line.substring(i, Math.min(line.length(), i + SEGMENT_LENGTH)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of segments pushed.
+     */
+    public long load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(WINDOW, size - position));
+                int end = window.limit();
+                if (position + end < size) {
+                    // do not split a multi-byte character between windows
+                    int lead = end - 1;
+                    while (lead > 0 && (window.get(lead) & 0xC0) == 0x80) {
+                        lead--;
+                    }
+                    int first = window.get(lead) & 0xFF;
+                    int length = first < 0x80 ? 1 : first >= 0xF0 ? 4 : first >= 0xE0 ? 3 : 2;
+                    if (lead + length > end) {
+                        end = lead;
+                    }
+                }
+                split(StandardCharsets.UTF_8.decode(window.slice(0, end)));
+                position += end;
+            }
+        }
+        endLine();
+        flush();
+        return segments;
+    }
+
+    private void split(CharBuffer chars) {
+        char[] array = chars.array();
+        int limit = chars.arrayOffset() + chars.limit();
+        int start = chars.arrayOffset() + chars.position();
+        for (int i = start; i < limit; i++) {
+            char c = array[i];
+            if (c == '\n' || c == '\r') {
+                take(array, start, i);
+                endLine();
+                start = i + 1;
+            } else if (i - start + carry.length() == SEGMENT_LENGTH) {
+                take(array, start, i);
+                start = i;
+            }
+        }
+        carry.append(array, start, limit - start);
+    }
+
+    /**
+     * Emits {@code carry + array[from, to)}, which is at most one full segment, unless it is empty.
+     */
+    private void take(char[] array, int from, int to) {
+        if (carry.isEmpty()) {
+            if (to > from) {
+                emit(new String(array, from, to - from));
+            }
+            return;
+        }
+        carry.append(array, from, to - from);
+        emit(carry.toString());
+        carry.setLength(0);
+    }
+
+    private void endLine() {
+        if (!carry.isEmpty()) {
+            emit(carry.toString());
+            carry.setLength(0);
+        }
+    }
+
+    private void emit(String segment) {
+        batch.add(segment);
+        segments++;
+        if (batch.size() == BATCH) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            list.pushAll(batch);
+            batch = new ArrayList<>(BATCH);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Concurrent list of strings kept sorted by background workers, as driven by {@link Main}.
+ */
+public interface ConcurrentStringList extends Iterable<String> {
+
+    void push(String item);
+
+    /**
+     * Same as pushing the items one by one in order, but implementations link them in all at once.
+     */
+    default void pushAll(List<String> items) {
+        for (String item : items) {
+            push(item);
+        }
+    }
+
+    /**
+     * Number of swaps (or other sorting steps) performed so far.
+     */
+    long steps();
+
+    /**
+     * Asks the sorting workers to finish.
+     */
+    void stop();
+
+    /**
+     * Immutable point-in-time view of the list that does not hold up pushes or sorters while it is read.
+     * The default copies the list through its iterator.
+     */
+    default Snapshot snapshot() {
+        List<String> copy = new ArrayList<>();
+        for (String item : this) {
+            copy.add(item);
+        }
+        return copy::iterator;
+    }
+
+    interface Snapshot extends Iterable<String>, AutoCloseable {
+
+        /**
+         * Lets the list forget the history kept for this view.
+         */
+        @Override
+        default void close() {
+        }
+    }
+}
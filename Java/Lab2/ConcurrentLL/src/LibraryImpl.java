@@ -35,20 +35,15 @@ public class LibraryImpl {
                 String input = br.readLine();
                 if (input == null) break;
                 if (!input.isEmpty()) {
-                    while (input.length() > 80) {
-                        String data = input.substring(0, 80);
-                        input = input.substring(80);
+                    for (String data : BulkLoader.segments(input)) {
                         ll.addFirst(data);
                     }
-                    if (!input.isEmpty()) {
-                        ll.addFirst(input);
-                    }
                 } else {
+                    List<String> snapshot;
                     synchronized (ll) {
-                        for (String s : ll) {
-                            System.out.println(s);
-                        }
+                        snapshot = new ArrayList<>(ll);
                     }
+                    Main.dump(snapshot);
                 }
             }
         } catch (IOException e) {
@@ -58,13 +53,13 @@ public class LibraryImpl {
         }
     }
 
-    private static void sort_worker(List<String> list, AtomicBoolean run, AtomicLong stepCount) {
+    static void sort_worker(List<String> list, AtomicBoolean run, AtomicLong stepCount) {
         boolean swap = false;
         try {
             while (run.get()) {
-                Thread.sleep(Duration.ofSeconds(5));
+                Pauses.pause(Duration.ofSeconds(5));
                 boolean flag = true;
-                while (flag) {
+                while (flag && run.get()) {
                     int i = 0;
                     flag = false;
                     while (true) {
@@ -82,7 +77,7 @@ public class LibraryImpl {
                         if (done) break;
 
                         if (swap) {
-                            Thread.sleep(Duration.ofSeconds(1));
+                            Pauses.pause(Duration.ofSeconds(1));
                         }
                         i++;
                     }
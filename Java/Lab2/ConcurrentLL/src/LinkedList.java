@@ -1,20 +1,29 @@
 import java.time.Duration;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 
-import static java.lang.Thread.sleep;
-
-public class LinkedList implements Iterable<String> {
+public class LinkedList implements ConcurrentStringList {
     private Node head;
     public final ReentrantLock headLock = new ReentrantLock();
     public final AtomicBoolean run = new AtomicBoolean(true);
     public final AtomicLong counter = new AtomicLong(0);
 
+    /**
+     * Link writes hold it shared and are versioned with the current epoch; taking a snapshot holds it
+     * exclusively for just long enough to advance the epoch, so every swap is entirely in or out of it.
+     */
+    private final StampedLock epochLock = new StampedLock();
+    private volatile long epoch;
+    private final ConcurrentSkipListSet<Long> snapshots = new ConcurrentSkipListSet<>();
+
     private final ExecutorService exec;
 
     public LinkedList(int threads) {
@@ -30,9 +39,9 @@ public class LinkedList implements Iterable<String> {
         boolean swap = false;
         try {
             while (run.get()) {
-                sleep(Duration.ofSeconds(5));
+                Pauses.pause(Duration.ofSeconds(5));
                 boolean flag = true;
-                while (flag) {
+                while (flag && run.get()) {
                     prev = head;
                     flag = false;
                     while (true) {
@@ -54,9 +63,13 @@ public class LinkedList implements Iterable<String> {
                         if (current1.name.compareTo(current2.name) > 0) {
                             swap = true;
                             flag = true;
-                            current1.next = current2.next;
-                            prev.next = current2;
-                            current2.next = current1;
+                            long stamp = epochLock.readLock();
+                            long version = epoch;
+                            long oldest = oldestSnapshot();
+                            current1.setNext(current2.next, version, oldest);
+                            prev.setNext(current2, version, oldest);
+                            current2.setNext(current1, version, oldest);
+                            epochLock.unlockRead(stamp);
                             counter.incrementAndGet();
                         }
 
@@ -64,7 +77,7 @@ public class LinkedList implements Iterable<String> {
                         current1.lock.unlock();
                         current2.lock.unlock();
                         if (swap) {
-                            sleep(Duration.ofSeconds(1));
+                            Pauses.pause(Duration.ofSeconds(1));
                             prev = current2;
                         } else {
                             prev = current1;
@@ -77,16 +90,104 @@ public class LinkedList implements Iterable<String> {
         }
     }
 
+    @Override
     public void push(String item) {
         Node node = new Node(item);
         headLock.lock();
+        long stamp = epochLock.readLock();
 
-        node.next = head.next;
-        head.next = node;
+        long version = epoch;
+        long oldest = oldestSnapshot();
+        node.setNext(head.next, version, oldest);
+        head.setNext(node, version, oldest);
 
+        epochLock.unlockRead(stamp);
         headLock.unlock();
     }
 
+    /**
+     * Builds the chain first and splices it in under a single acquisition of {@link #headLock}.
+     */
+    @Override
+    public void pushAll(List<String> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Node first = new Node(items.getLast());
+        Node last = first;
+        for (int i = items.size() - 2; i >= 0; i--) {
+            Node node = new Node(items.get(i));
+            last.setNext(node, 0, Long.MAX_VALUE);
+            last = node;
+        }
+        headLock.lock();
+        long stamp = epochLock.readLock();
+
+        long version = epoch;
+        long oldest = oldestSnapshot();
+        last.setNext(head.next, version, oldest);
+        head.setNext(first, version, oldest);
+
+        epochLock.unlockRead(stamp);
+        headLock.unlock();
+    }
+
+    @Override
+    public long steps() {
+        return counter.get();
+    }
+
+    @Override
+    public void stop() {
+        run.set(false);
+        exec.shutdown();
+    }
+
+    /**
+     * O(1): advances the epoch and reads links as of the previous one, without taking node locks.
+     */
+    @Override
+    public Snapshot snapshot() {
+        long stamp = epochLock.writeLock();
+        long version = epoch;
+        epoch = version + 1;
+        snapshots.add(version);
+        epochLock.unlockWrite(stamp);
+        return new Snapshot() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<>() {
+                    private Node current = head.nextAt(version);
+
+                    @Override
+                    public boolean hasNext() {
+                        return current != null;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (current == null) {
+                            throw new NoSuchElementException();
+                        }
+                        String result = current.name;
+                        current = current.nextAt(version);
+                        return result;
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+                snapshots.remove(version);
+            }
+        };
+    }
+
+    private long oldestSnapshot() {
+        Long oldest = snapshots.ceiling(Long.MIN_VALUE);
+        return oldest == null ? Long.MAX_VALUE : oldest;
+    }
+
     @Override
     public Iterator<String> iterator() {
         return new Iterator<>() {
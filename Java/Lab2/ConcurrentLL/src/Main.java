@@ -1,46 +1,81 @@
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: java Main <sorting_threads_amount>");
+        if (args.length < 1) {
+            System.err.println("Usage: java Main <sorting_threads_amount> [locking|optimistic|mergesort|unrolled|library|skiplist] [file...]");
             System.exit(1);
         }
         int threads = Integer.parseInt(args[0]);
-        LinkedList ll = new LinkedList(threads);
+        ConcurrentStringList ll = create(args.length > 1 ? args[1] : "locking", threads);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("Shutting down...");
-            ll.run.set(false);
-            System.out.println("Steps performed " + ll.counter.get() + " times.");
+            ll.stop();
+            System.out.println("Steps performed " + ll.steps() + " times.");
+            if (ll instanceof MergeSortList list && list.lastRound() != null) {
+                MergeSortList.Round round = list.lastRound();
+                System.out.printf("Last merge round: %d new entries into %d in %d ms%n", round.merged(), round.size(),
+                        round.nanos() / 1_000_000);
+            }
         }));
+        for (int i = 2; i < args.length; i++) {
+            try {
+                long started = System.nanoTime();
+                long segments = new BulkLoader(ll).load(Path.of(args[i]));
+                double seconds = (System.nanoTime() - started) / 1e9;
+                System.out.printf("Loaded %d segments from %s in %.2f s (%.1f MB/s)%n", segments, args[i], seconds,
+                        Files.size(Path.of(args[i])) / 1e6 / seconds);
+            } catch (IOException e) {
+                System.err.println("Error loading " + args[i] + ": " + e.getMessage());
+            }
+        }
         try (BufferedReader br = new BufferedReader(new InputStreamReader(System.in))) {
             while (true) {
                 String input = br.readLine();
+                if (input == null) break;
 
                 if (!input.isEmpty()) {
-                    while (input.length() > 80) {
-                        String data = input.substring(0, 80);
-                        input = input.substring(80);
-                        ll.push(data);
-                    }
-                    if (!input.isEmpty()) {
-                        ll.push(input);
-                    }
+                    ll.pushAll(BulkLoader.segments(input));
                 } else {
-                    for (String s : ll) {
-                        System.out.println(s);
+                    try (ConcurrentStringList.Snapshot snapshot = ll.snapshot()) {
+                        dump(snapshot);
                     }
                 }
             }
         } catch (IOException e) {
             System.err.println("Error reading file");
-            ll.run.set(false);
+            ll.stop();
             System.exit(1);
         }
     }
+
+    /**
+     * Prints the items through one large buffer instead of a console write per line.
+     */
+    static void dump(Iterable<String> items) throws IOException {
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        for (String s : items) {
+            out.write(s);
+            out.newLine();
+        }
+        out.flush();
+    }
+
+    static ConcurrentStringList create(String mode, int threads) {
+        return switch (mode) {
+            case "locking" -> new LinkedList(threads);
+            case "optimistic" -> new OptimisticLinkedList(threads);
+            case "mergesort" -> new MergeSortList(threads);
+            case "unrolled" -> new UnrolledLinkedList(threads);
+            case "library" -> new SynchronizedList(threads);
+            case "skiplist" -> new SkipListList();
+            default -> throw new IllegalArgumentException("Unknown list mode: " + mode);
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * List sorted in rounds instead of by adjacent swaps. The whole list is one immutable {@link State}:
+ * a sorted array plus a side buffer of pushes not sorted yet. Every round the sorter takes the buffer,
+ * sorts it with a parallel merge sort, merges it into the array and publishes the result with a CAS,
+ * keeping whatever was pushed meanwhile in the buffer. Pushes and reads never wait for a round.
+ */
+public class MergeSortList implements ConcurrentStringList {
+    private static final Duration ROUND_INTERVAL = Duration.ofSeconds(1);
+
+    private record Pending(String item, Pending next, int size) {
+    }
+
+    private record State(String[] sorted, Pending pending) {
+    }
+
+    /**
+     * One finished round: how many buffered pushes it merged, the resulting list size and how long it took.
+     */
+    public record Round(int merged, int size, long nanos) {
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(new State(new String[0], null));
+    public final AtomicBoolean run = new AtomicBoolean(true);
+    public final AtomicLong counter = new AtomicLong(0);
+    private volatile Round lastRound;
+
+    private final ParallelMergeSort sorter;
+    private final ExecutorService exec = Executors.newSingleThreadExecutor();
+
+    public MergeSortList(int threads) {
+        sorter = new ParallelMergeSort(threads);
+        exec.submit(this::sort_worker);
+    }
+
+    private void sort_worker() {
+        try {
+            while (run.get()) {
+                Pauses.pause(ROUND_INTERVAL);
+                State taken = state.get();
+                if (taken.pending() == null) {
+                    continue;
+                }
+                long started = System.nanoTime();
+                String[] batch = new String[taken.pending().size()];
+                int i = 0;
+                for (Pending p = taken.pending(); p != null; p = p.next()) {
+                    batch[i++] = p.item();
+                }
+                sorter.sort(batch);
+                String[] merged = ParallelMergeSort.merge(taken.sorted(), batch);
+                State current;
+                do {
+                    current = state.get();
+                } while (!state.compareAndSet(current, new State(merged, without(current.pending(), taken.pending()))));
+                counter.addAndGet(merged.length);
+                lastRound = new Round(batch.length, merged.length, System.nanoTime() - started);
+            }
+        } catch (InterruptedException e) {
+            System.err.println("Thread got interrupted: " + e.getMessage());
+        } finally {
+            sorter.shutdown();
+        }
+    }
+
+    /**
+     * The part of the buffer pushed after {@code taken}, which is always a suffix of it.
+     */
+    private static Pending without(Pending pending, Pending taken) {
+        String[] kept = new String[pending.size() - taken.size()];
+        int count = 0;
+        for (Pending p = pending; p != taken; p = p.next()) {
+            kept[count++] = p.item();
+        }
+        Pending rebuilt = null;
+        for (int i = count - 1; i >= 0; i--) {
+            rebuilt = new Pending(kept[i], rebuilt, count - i);
+        }
+        return rebuilt;
+    }
+
+    @Override
+    public void push(String item) {
+        State current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new State(current.sorted(), new Pending(item, current.pending(),
+                current.pending() == null ? 1 : current.pending().size() + 1))));
+    }
+
+    @Override
+    public void pushAll(List<String> items) {
+        State current;
+        State updated;
+        do {
+            current = state.get();
+            Pending pending = current.pending();
+            for (String item : items) {
+                pending = new Pending(item, pending, pending == null ? 1 : pending.size() + 1);
+            }
+            updated = new State(current.sorted(), pending);
+        } while (!state.compareAndSet(current, updated));
+    }
+
+    /**
+     * Elements placed by merges so far.
+     */
+    @Override
+    public long steps() {
+        return counter.get();
+    }
+
+    /**
+     * The most recent round, or {@code null} if none has finished yet.
+     */
+    public Round lastRound() {
+        return lastRound;
+    }
+
+    @Override
+    public void stop() {
+        run.set(false);
+        exec.shutdown();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * The current state is already immutable, so the view is just a reference to it. Unsorted pushes
+     * come first, newest first as in the other lists, then the sorted part.
+     */
+    @Override
+    public Snapshot snapshot() {
+        State snapshot = state.get();
+        return () -> new Iterator<>() {
+            private Pending pending = snapshot.pending();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return pending != null || index < snapshot.sorted().length;
+            }
+
+            @Override
+            public String next() {
+                if (pending != null) {
+                    String result = pending.item();
+                    pending = pending.next();
+                    return result;
+                }
+                if (index >= snapshot.sorted().length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot.sorted()[index++];
+            }
+        };
+    }
+}
@@ -4,12 +4,58 @@ public class Node {
     public final String name;
     public Node next;
     public final ReentrantLock lock;
+    /** Versions of {@link #next} for snapshot readers, newest first. */
+    volatile Link link;
+
+    static final class Link {
+        final Node next;
+        final long version;
+        volatile Link previous;
+
+        Link(Node next, long version, Link previous) {
+            this.next = next;
+            this.version = version;
+            this.previous = previous;
+        }
+    }
 
     public Node(String name) {
         this.name = name;
         this.lock = new ReentrantLock();
     }
 
+    /**
+     * Sets {@link #next} and records it as of {@code version}, dropping versions older than
+     * {@code oldestSnapshot} needs. The caller must be the only writer of this node.
+     */
+    void setNext(Node next, long version, long oldestSnapshot) {
+        this.next = next;
+        Link current = link;
+        Link previous = current != null && current.version == version ? current.previous : current;
+        if (oldestSnapshot == Long.MAX_VALUE) {
+            previous = null;
+        } else {
+            for (Link l = previous; l != null; l = l.previous) {
+                if (l.version <= oldestSnapshot) {
+                    l.previous = null;
+                    break;
+                }
+            }
+        }
+        link = new Link(next, version, previous);
+    }
+
+    /**
+     * The value {@link #next} had at the given version.
+     */
+    Node nextAt(long version) {
+        Link l = link;
+        while (l != null && l.version > version) {
+            l = l.previous;
+        }
+        return l == null ? null : l.next;
+    }
+
     public void putNext(Node next) {
         next.next = this.next;
         this.next = next;
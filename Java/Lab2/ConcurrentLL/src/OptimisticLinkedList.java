@@ -0,0 +1,195 @@
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Variant of {@link LinkedList} whose readers never lock. A swap never modifies the two swapped nodes:
+ * it links in fresh copies of them with a single write of {@code prev.next} and retires the old ones,
+ * so an iterator standing on an old node still walks a consistent chain. Push is a CAS on the head link.
+ * Sorters coordinate through a one-word spin lock per node instead of a {@link java.util.concurrent.locks.ReentrantLock}.
+ */
+public class OptimisticLinkedList implements ConcurrentStringList {
+    private static final int LOCKED = 1;
+    private static final int DEAD = 2;
+
+    private static final class Node {
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+        private static final AtomicIntegerFieldUpdater<Node> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "state");
+
+        final String name;
+        volatile Node next;
+        volatile int state;
+
+        Node(String name, Node next) {
+            this.name = name;
+            this.next = next;
+        }
+
+        /**
+         * Spins until the node is locked by us; returns false without locking if it was retired.
+         */
+        boolean lock() {
+            while (true) {
+                int s = state;
+                if ((s & DEAD) != 0) {
+                    return false;
+                }
+                if (s == 0 && STATE.compareAndSet(this, 0, LOCKED)) {
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        void unlock() {
+            state = 0;
+        }
+
+        void retire() {
+            state = DEAD;
+        }
+    }
+
+    private final Node head = new Node("", null);
+    public final AtomicBoolean run = new AtomicBoolean(true);
+    public final AtomicLong counter = new AtomicLong(0);
+
+    private final ExecutorService exec;
+
+    public OptimisticLinkedList(int threads) {
+        exec = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            exec.submit(this::sort_worker);
+        }
+    }
+
+    private void sort_worker() {
+        try {
+            while (run.get()) {
+                Pauses.pause(Duration.ofSeconds(5));
+                boolean flag = true;
+                while (flag && run.get()) {
+                    flag = false;
+                    Node prev = head;
+                    while (prev != null) {
+                        if (!prev.lock()) {
+                            // prev was swapped away by another sorter; start the pass over
+                            flag = true;
+                            break;
+                        }
+                        Node current1 = prev.next;
+                        if (current1 == null || !current1.lock()) {
+                            prev.unlock();
+                            flag |= current1 != null;
+                            break;
+                        }
+                        Node current2 = current1.next;
+                        if (current2 == null || !current2.lock()) {
+                            current1.unlock();
+                            prev.unlock();
+                            flag |= current2 != null;
+                            break;
+                        }
+                        Node swapped = null;
+                        if (current1.name.compareTo(current2.name) > 0) {
+                            Node moved1 = new Node(current1.name, current2.next);
+                            Node moved2 = new Node(current2.name, moved1);
+                            // only the head link can change under our lock, by a concurrent push
+                            if (Node.NEXT.compareAndSet(prev, current1, moved2)) {
+                                current1.retire();
+                                current2.retire();
+                                counter.incrementAndGet();
+                                swapped = moved2;
+                                flag = true;
+                            }
+                        }
+                        if (swapped == null) {
+                            current2.unlock();
+                            current1.unlock();
+                        }
+                        prev.unlock();
+                        if (swapped != null) {
+                            Pauses.pause(Duration.ofSeconds(1));
+                            prev = swapped;
+                        } else {
+                            prev = current1;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            System.err.println("Thread got interrupted: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void push(String item) {
+        Node node = new Node(item, null);
+        Node first;
+        do {
+            first = head.next;
+            node.next = first;
+        } while (!Node.NEXT.compareAndSet(head, first, node));
+    }
+
+    @Override
+    public void pushAll(List<String> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Node first = new Node(items.getLast(), null);
+        Node last = first;
+        for (int i = items.size() - 2; i >= 0; i--) {
+            Node node = new Node(items.get(i), null);
+            last.next = node;
+            last = node;
+        }
+        Node old;
+        do {
+            old = head.next;
+            last.next = old;
+        } while (!Node.NEXT.compareAndSet(head, old, first));
+    }
+
+    @Override
+    public long steps() {
+        return counter.get();
+    }
+
+    @Override
+    public void stop() {
+        run.set(false);
+        exec.shutdown();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private Node current = head.next;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public String next() {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                String result = current.name;
+                current = current.next;
+                return result;
+            }
+        };
+    }
+}
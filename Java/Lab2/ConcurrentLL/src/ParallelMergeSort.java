@@ -0,0 +1,74 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join merge sort of a string array: halves are sorted in parallel down to
+ * {@link #SEQUENTIAL_THRESHOLD} elements, then merged back through one scratch array.
+ */
+public class ParallelMergeSort {
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private final ForkJoinPool pool;
+
+    public ParallelMergeSort(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public void sort(String[] items) {
+        if (items.length <= SEQUENTIAL_THRESHOLD) {
+            Arrays.sort(items);
+            return;
+        }
+        pool.invoke(new SortTask(items, new String[items.length], 0, items.length));
+    }
+
+    /**
+     * Merges two sorted arrays into a new one.
+     */
+    public static String[] merge(String[] left, String[] right) {
+        String[] out = new String[left.length + right.length];
+        merge(left, 0, left.length, right, 0, right.length, out, 0);
+        return out;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static void merge(String[] a, int aFrom, int aTo, String[] b, int bFrom, int bTo, String[] out, int outFrom) {
+        int i = aFrom, j = bFrom, k = outFrom;
+        while (i < aTo && j < bTo) {
+            out[k++] = a[i].compareTo(b[j]) <= 0 ? a[i++] : b[j++];
+        }
+        System.arraycopy(a, i, out, k, aTo - i);
+        System.arraycopy(b, j, out, k + aTo - i, bTo - j);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SortTask extends RecursiveAction {
+        private final String[] items;
+        private final String[] scratch;
+        private final int from;
+        private final int to;
+
+        SortTask(String[] items, String[] scratch, int from, int to) {
+            this.items = items;
+            this.scratch = scratch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Arrays.sort(items, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(items, scratch, from, middle), new SortTask(items, scratch, middle, to));
+            System.arraycopy(items, from, scratch, from, to - from);
+            merge(scratch, from, middle, scratch, middle, to, items, from);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import java.time.Duration;
+
+/**
+ * The deliberate pauses of the sorting workers. Running with {@code -Dconcurrentll.pauses=false}
+ * turns them into a plain yield, so benchmarks measure the data structures rather than the sleeps.
+ */
+public final class Pauses {
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("concurrentll.pauses", "true"));
+
+    private Pauses() {
+    }
+
+    public static void pause(Duration duration) throws InterruptedException {
+        if (ENABLED) {
+            Thread.sleep(duration);
+        } else {
+            Thread.yield();
+        }
+    }
+}
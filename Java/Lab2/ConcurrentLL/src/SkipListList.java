@@ -0,0 +1,59 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * List that is sorted on insertion: a {@link ConcurrentSkipListMap} from item to the number of times it
+ * was pushed, so a push is an O(log n) CAS insert and duplicates cost a counter instead of a node.
+ * Readers never lock and always see the items in order; there are no sorting workers and no steps.
+ */
+public class SkipListList implements ConcurrentStringList {
+    private final ConcurrentSkipListMap<String, Integer> items = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void push(String item) {
+        items.merge(item, 1, Integer::sum);
+    }
+
+    @Override
+    public long steps() {
+        return 0;
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    /**
+     * Weakly consistent like the map's own iterators: every item is repeated as many times as it has
+     * been pushed when the iterator reaches it.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        Iterator<Map.Entry<String, Integer>> entries = items.entrySet().iterator();
+        return new Iterator<>() {
+            private String item;
+            private int left;
+
+            @Override
+            public boolean hasNext() {
+                while (left == 0 && entries.hasNext()) {
+                    Map.Entry<String, Integer> entry = entries.next();
+                    item = entry.getKey();
+                    left = entry.getValue();
+                }
+                return left > 0;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                left--;
+                return item;
+            }
+        };
+    }
+}
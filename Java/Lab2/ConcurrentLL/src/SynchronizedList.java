@@ -0,0 +1,58 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link LibraryImpl} approach, a {@code Collections.synchronizedList} sorted by its workers,
+ * behind {@link ConcurrentStringList} so it can be compared with the other lists.
+ */
+public class SynchronizedList implements ConcurrentStringList {
+    private final List<String> list = Collections.synchronizedList(new ArrayList<>());
+    public final AtomicBoolean run = new AtomicBoolean(true);
+    public final AtomicLong counter = new AtomicLong(0);
+
+    private final ExecutorService exec;
+
+    public SynchronizedList(int threads) {
+        exec = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            exec.submit(() -> LibraryImpl.sort_worker(list, run, counter));
+        }
+    }
+
+    @Override
+    public void push(String item) {
+        list.addFirst(item);
+    }
+
+    @Override
+    public void pushAll(List<String> items) {
+        list.addAll(0, items.reversed());
+    }
+
+    @Override
+    public long steps() {
+        return counter.get();
+    }
+
+    @Override
+    public void stop() {
+        run.set(false);
+        exec.shutdown();
+    }
+
+    /**
+     * Iterates over a copy taken under the list's monitor.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        synchronized (list) {
+            return new ArrayList<>(list).iterator();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Unrolled variant of {@link LinkedList}: each node is a block of up to {@link #BLOCK_SIZE} entries
+ * stored as UTF-8 bytes, guarded by one lock. Sorters walk pairs of neighbouring blocks hand over hand
+ * and merge-split them, so the smaller half stays in the first block; repeating passes until nothing
+ * moves leaves the whole list sorted. Entries are ordered by unsigned UTF-8 bytes, which is code point order.
+ */
+public class UnrolledLinkedList implements ConcurrentStringList {
+    static final int BLOCK_SIZE = 64;
+
+    private static final class Block {
+        final byte[][] entries = new byte[BLOCK_SIZE][];
+        int size;
+        boolean sorted = true;
+        Block next;
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    private final Block head = new Block();
+    public final ReentrantLock headLock = new ReentrantLock();
+    public final AtomicBoolean run = new AtomicBoolean(true);
+    public final AtomicLong counter = new AtomicLong(0);
+
+    private final ExecutorService exec;
+
+    public UnrolledLinkedList(int threads) {
+        exec = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            exec.submit(this::sort_worker);
+        }
+    }
+
+    private void sort_worker() {
+        try {
+            while (run.get()) {
+                Pauses.pause(Duration.ofSeconds(5));
+                boolean flag = true;
+                while (flag && run.get()) {
+                    flag = false;
+                    headLock.lock();
+                    Block current1 = head.next;
+                    if (current1 == null) {
+                        headLock.unlock();
+                        break;
+                    }
+                    current1.lock.lock();
+                    headLock.unlock();
+                    sortBlock(current1);
+                    while (true) {
+                        Block current2 = current1.next;
+                        if (current2 == null) {
+                            current1.lock.unlock();
+                            break;
+                        }
+                        current2.lock.lock();
+                        boolean moved = mergeSplit(current1, current2);
+                        current1.lock.unlock();
+                        if (moved) {
+                            flag = true;
+                            counter.incrementAndGet();
+                            // blocks are only ever added at the head, so current2 is still linked after the pause
+                            current2.lock.unlock();
+                            Pauses.pause(Duration.ofSeconds(1));
+                            current2.lock.lock();
+                        }
+                        current1 = current2;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            System.err.println("Thread got interrupted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Leaves the smallest {@code first.size} entries of both blocks in {@code first}, both sorted.
+     * Returns whether any entry changed blocks.
+     */
+    private static boolean mergeSplit(Block first, Block second) {
+        sortBlock(first);
+        sortBlock(second);
+        if (first.size == 0 || second.size == 0
+                || Arrays.compareUnsigned(first.entries[first.size - 1], second.entries[0]) <= 0) {
+            return false;
+        }
+        byte[][] merged = new byte[first.size + second.size][];
+        int i = 0, j = 0, k = 0;
+        while (i < first.size && j < second.size) {
+            merged[k++] = Arrays.compareUnsigned(first.entries[i], second.entries[j]) <= 0
+                    ? first.entries[i++] : second.entries[j++];
+        }
+        while (i < first.size) merged[k++] = first.entries[i++];
+        while (j < second.size) merged[k++] = second.entries[j++];
+        System.arraycopy(merged, 0, first.entries, 0, first.size);
+        System.arraycopy(merged, first.size, second.entries, 0, second.size);
+        return true;
+    }
+
+    private static void sortBlock(Block block) {
+        if (!block.sorted) {
+            Arrays.sort(block.entries, 0, block.size, Arrays::compareUnsigned);
+            block.sorted = true;
+        }
+    }
+
+    @Override
+    public void push(String item) {
+        byte[] entry = item.getBytes(StandardCharsets.UTF_8);
+        headLock.lock();
+        try {
+            Block first = head.next;
+            if (first == null || first.size == BLOCK_SIZE) {
+                Block block = new Block();
+                block.next = first;
+                head.next = block;
+                first = block;
+            }
+            first.lock.lock();
+            try {
+                first.entries[first.size++] = entry;
+                first.sorted = first.size == 1;
+            } finally {
+                first.lock.unlock();
+            }
+        } finally {
+            headLock.unlock();
+        }
+    }
+
+    /**
+     * Packs the items into full blocks outside the lock and links them in front of the existing ones.
+     */
+    @Override
+    public void pushAll(List<String> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Block first = null;
+        Block last = null;
+        for (int i = items.size() - 1; i >= 0; ) {
+            Block block = new Block();
+            while (block.size < BLOCK_SIZE && i >= 0) {
+                block.entries[block.size++] = items.get(i--).getBytes(StandardCharsets.UTF_8);
+            }
+            block.sorted = block.size == 1;
+            if (first == null) {
+                first = block;
+            } else {
+                last.next = block;
+            }
+            last = block;
+        }
+        headLock.lock();
+        try {
+            last.next = head.next;
+            head.next = first;
+        } finally {
+            headLock.unlock();
+        }
+    }
+
+    /**
+     * Number of block pairs whose entries had to be exchanged.
+     */
+    @Override
+    public long steps() {
+        return counter.get();
+    }
+
+    @Override
+    public void stop() {
+        run.set(false);
+        exec.shutdown();
+    }
+
+    /**
+     * Copies one block at a time, locking the next block before releasing the current one.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private Block block;
+            private String[] items = new String[0];
+            private int index;
+
+            {
+                headLock.lock();
+                block = head.next;
+                if (block != null) {
+                    block.lock.lock();
+                }
+                headLock.unlock();
+                load();
+            }
+
+            private void load() {
+                while (block != null && index == items.length) {
+                    items = new String[block.size];
+                    for (int i = 0; i < block.size; i++) {
+                        items[i] = new String(block.entries[i], StandardCharsets.UTF_8);
+                    }
+                    index = 0;
+                    Block next = block.next;
+                    if (next != null) {
+                        next.lock.lock();
+                    }
+                    block.lock.unlock();
+                    block = next;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < items.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String result = items[index++];
+                if (index == items.length) {
+                    load();
+                }
+                return result;
+            }
+        };
+    }
+}
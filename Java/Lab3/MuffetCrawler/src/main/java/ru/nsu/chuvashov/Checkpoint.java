@@ -0,0 +1,159 @@
+package ru.nsu.chuvashov;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk state of a crawl in a directory of two files. {@code messages.bin} is a journal that every
+ * collected message is appended to as it arrives. {@code frontier.bin} is rewritten on every save with the
+ * visited URLs, the pending frontier and the length of the journal at that moment; a crash between saves
+ * loses only the tail of the journal past that length. Strings are stored as UTF-8 with a length prefix.
+ */
+public class Checkpoint implements AutoCloseable {
+    private static final int MAGIC = 0x4d434b31;
+
+    private final Path frontierFile;
+    private final Path tempFile;
+    private final FileChannel journal;
+    private final DataOutputStream journalOut;
+
+    /**
+     * Opens the checkpoint in {@code directory}. Unless {@code resume} is set, previous state there is discarded.
+     */
+    public Checkpoint(Path directory, boolean resume) throws IOException {
+        Files.createDirectories(directory);
+        this.frontierFile = directory.resolve("frontier.bin");
+        this.tempFile = directory.resolve("frontier.bin.tmp");
+        if (!resume) {
+            Files.deleteIfExists(frontierFile);
+        }
+        this.journal = FileChannel.open(directory.resolve("messages.bin"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.journalOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journal), 1 << 16));
+    }
+
+    /**
+     * Loads the saved frontier and feeds the journaled messages to {@code messages} without journaling them
+     * again. Returns {@code false}, leaving both untouched and the journal empty, if nothing has been saved.
+     */
+    public boolean restore(Frontier frontier, ResultSink messages) throws IOException {
+        if (!Files.exists(frontierFile)) {
+            journal.truncate(0);
+            return false;
+        }
+        long journalLength;
+        List<String> visited = new ArrayList<>();
+        List<Frontier.Entry> pending = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(frontierFile)), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a crawl checkpoint: " + frontierFile);
+            }
+            journalLength = in.readLong();
+            for (int i = in.readInt(); i > 0; i--) {
+                visited.add(readString(in));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                pending.add(new Frontier.Entry(readString(in), in.readInt(), in.readLong()));
+            }
+        }
+        frontier.restore(visited, pending);
+
+        journal.truncate(journalLength);
+        journal.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(journal), 1 << 16));
+        for (long read = 0; read < journalLength; ) {
+            int length = in.readInt();
+            messages.accept(new String(readBytes(in, length), StandardCharsets.UTF_8));
+            read += 4 + length;
+        }
+        journal.position(journalLength);
+        return true;
+    }
+
+    /**
+     * Journals a collected message before it goes to the result sink; {@link #save} makes it durable.
+     */
+    public synchronized void append(String message) throws IOException {
+        writeString(journalOut, message);
+    }
+
+    /**
+     * Saves the frontier. Nothing may be in flight, so that every visited URL is either pending or has had
+     * its message journaled and its successors offered.
+     */
+    public void save(Frontier frontier) throws IOException {
+        long journalLength;
+        synchronized (this) {
+            journalOut.flush();
+            journal.force(false);
+            journalLength = journal.position();
+        }
+        try (FileChannel file = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(file));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeLong(journalLength);
+            out.writeInt(frontier.visited().size());
+            for (String url : frontier.visited().urls()) {
+                writeString(out, url);
+            }
+            List<Frontier.Entry> pending = frontier.pending();
+            out.writeInt(pending.size());
+            for (Frontier.Entry entry : pending) {
+                writeString(out, entry.url());
+                out.writeInt(entry.depth());
+                out.writeLong(entry.sequence());
+            }
+            out.flush();
+            gzip.finish();
+            // the rename below must never expose a file whose contents are not on disk yet
+            file.force(true);
+        }
+        Files.move(tempFile, frontierFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel directory = FileChannel.open(frontierFile.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ignored) {
+            // not every platform can sync a directory; the file itself is already durable
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journalOut.close();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in, in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Truncated checkpoint");
+        }
+        return bytes;
+    }
+}
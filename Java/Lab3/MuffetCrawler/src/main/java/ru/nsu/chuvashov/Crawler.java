@@ -4,66 +4,196 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 
 public class Crawler {
+    private static final int EXPECTED_URLS = 1 << 20;
+    private static final long CHECKPOINT_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
     private final String BASE_URL;
+    private final int maxInFlight;
+    private final boolean async;
     private final HttpClient client = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(15))
             .build();
     private final ObjectMapper mapper = new ObjectMapper();
-    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final ResultSink messages;
+    private final Checkpoint checkpoint;
+    private final ResponseCache cache;
 
-    public Crawler(int port) {
+    /**
+     * @param async fetch with {@code sendAsync} and parse bodies as they stream in, instead of one blocking
+     *              virtual thread per request
+     * @param messages receives the message of every page; the caller closes it after {@link #run}
+     * @param checkpoint where the crawl is resumed from and saved to every {@code CHECKPOINT_INTERVAL},
+     *                   or {@code null}
+     * @param cache responses to revalidate instead of downloading again, or {@code null}
+     */
+    public Crawler(int port, int maxInFlight, boolean async, ResultSink messages, Checkpoint checkpoint,
+                   ResponseCache cache) {
         this.BASE_URL = "http://localhost:" + port;
+        this.maxInFlight = maxInFlight;
+        this.async = async;
+        this.messages = messages;
+        this.checkpoint = checkpoint;
+        this.cache = cache;
     }
 
-    public void run(){
+    public void run() throws IOException {
+        Frontier frontier = new Frontier(new VisitedSet(EXPECTED_URLS));
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        if (checkpoint != null && checkpoint.restore(frontier, messages)) {
+            System.out.println("Resuming crawl: " + frontier.admitted() + " urls admitted, "
+                    + frontier.pending().size() + " pending");
+        } else {
+            frontier.offer("", 0);
+        }
 
+        long nextCheckpoint = System.nanoTime() + CHECKPOINT_INTERVAL;
         try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
-            String url = "";
-            CompletableFuture.runAsync(() -> crawl(url, executorService), executorService).join();
+            while (true) {
+                inFlight.acquire();
+                if (checkpoint != null && System.nanoTime() - nextCheckpoint >= 0) {
+                    inFlight.acquire(maxInFlight - 1);
+                    checkpoint.save(frontier);
+                    inFlight.release(maxInFlight - 1);
+                    nextCheckpoint = System.nanoTime() + CHECKPOINT_INTERVAL;
+                }
+                Frontier.Entry entry = frontier.take();
+                if (entry == null) {
+                    break;
+                }
+                if (async) {
+                    crawlAsync(entry, frontier).whenComplete((ignored, e) -> {
+                        frontier.done();
+                        inFlight.release();
+                    });
+                    continue;
+                }
+                executorService.submit(() -> {
+                    try {
+                        crawl(entry, frontier);
+                    } finally {
+                        frontier.done();
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Crawler was interrupted");
+            return;
         }
 
-        System.out.println("Crawler is finished");
-        Collections.sort(messages);
-        System.out.println(messages);
-        System.out.println(messages.size());
+        if (checkpoint != null) {
+            checkpoint.save(frontier);
+        }
+        System.out.println("Crawler is finished, " + frontier.admitted() + " urls visited");
+    }
+
+    /**
+     * Journals the message before handing it to the sink, so that a saved checkpoint covers it.
+     */
+    private void collect(String content) throws IOException {
+        if (checkpoint != null) {
+            checkpoint.append(content);
+        }
+        messages.accept(content);
     }
 
-    private void crawl(String url, ExecutorService executorService) {
+    private void crawl(Frontier.Entry entry, Frontier frontier) {
+        String url = entry.url();
         try {
-            List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
             System.out.println("Executing request " + url);
 
-            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/" + url)).GET().build();
+            ResponseCache.Entry cached = cache == null ? null : cache.get(url);
+            HttpRequest request = request(url, cached);
             System.out.println("Executing HTTP request " + request.uri());
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
 
-            if (response.statusCode() == 200) {
-                JsonNode data = mapper.readTree(response.body());
+            byte[] body = null;
+            if (response.statusCode() == 304 && cached != null) {
+                body = cached.body();
+            } else if (response.statusCode() == 200) {
+                body = response.body();
+                if (cache != null) {
+                    cache.put(url, response.headers(), body);
+                }
+            }
+            if (body != null) {
+                JsonNode data = mapper.readTree(body);
                 String content = data.get("message").asText();
                 System.out.println("From url " + url + " Got content: " + content);
                 JsonNode links = data.get("successors");
                 System.out.println("From url " + url + " Got links: " + links);
 
-                messages.add(content);
+                collect(content);
 
                 for (JsonNode link : links) {
-                    futures.add(CompletableFuture.runAsync(() -> crawl(link.asText(), executorService), executorService));
+                    frontier.offer(link.asText(), entry.depth() + 1);
                 }
-                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
             }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Request " + url + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
+
+    /**
+     * @throws IllegalArgumentException if a successor is not a valid URI path
+     */
+    private HttpRequest request(String url, ResponseCache.Entry cached) {
+        return ResponseCache.conditional(HttpRequest.newBuilder(URI.create(BASE_URL + "/" + url))
+                .timeout(REQUEST_TIMEOUT)
+                .GET(), cached).build();
+    }
+
+    private CompletableFuture<Void> crawlAsync(Frontier.Entry entry, Frontier frontier) {
+        String url = entry.url();
+        ResponseCache.Entry cached = cache == null ? null : cache.get(url);
+        HttpRequest request;
+        try {
+            request = request(url, cached);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Request " + url + " failed: " + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        System.out.println("Executing HTTP request " + request.uri());
+        Consumer<String> successors = link -> frontier.offer(link, entry.depth() + 1);
+        HttpResponse.BodyHandler<PageSubscriber.Page> handler = info -> info.statusCode() == 200
+                ? new PageSubscriber(mapper.getFactory(), successors, cache != null)
+                : HttpResponse.BodySubscribers.replacing(null);
+
+        return client.sendAsync(request, handler)
+                .thenAccept(response -> {
+                    try {
+                        PageSubscriber.Page page = response.body();
+                        if (response.statusCode() == 304 && cached != null) {
+                            page = PageSubscriber.parse(mapper.getFactory(), cached.body(), successors);
+                        } else if (page != null && cache != null) {
+                            cache.put(url, response.headers(), page.body());
+                        }
+                        if (page != null && page.message() != null) {
+                            System.out.println("From url " + url + " Got content: " + page.message());
+                            collect(page.message());
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .exceptionally(e -> {
+                    System.err.println("Request " + url + " failed: " + e.getMessage());
+                    return null;
+                });
+    }
 }
@@ -0,0 +1,102 @@
+package ru.nsu.chuvashov;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pending URLs of a crawl, handed out breadth-first as far as what has been discovered allows: the
+ * shallowest queued URL is taken first, in discovery order within a depth. Pages still in flight may yet
+ * offer shallower URLs than ones already taken, so the order is best-effort, not strictly level by level.
+ * A URL is admitted once, however many pages link to it. The crawl is over when every admitted URL has
+ * been taken and marked done.
+ */
+public class Frontier {
+    public record Entry(String url, int depth, long sequence) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byDepth = Integer.compare(depth, other.depth);
+            return byDepth != 0 ? byDepth : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final Entry END = new Entry(null, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final VisitedSet visited;
+    private final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger unfinished = new AtomicInteger();
+
+    public Frontier(VisitedSet visited) {
+        this.visited = visited;
+    }
+
+    /**
+     * Queues the URL unless it has been admitted before.
+     */
+    public boolean offer(String url, int depth) {
+        if (!visited.add(url)) {
+            return false;
+        }
+        unfinished.incrementAndGet();
+        queue.add(new Entry(url, depth, sequence.getAndIncrement()));
+        return true;
+    }
+
+    /**
+     * Waits for the next URL, or returns {@code null} once the crawl is over.
+     */
+    public Entry take() throws InterruptedException {
+        Entry entry = queue.take();
+        return entry == END ? null : entry;
+    }
+
+    /**
+     * Marks a taken URL as processed. Its successors must have been offered before this call.
+     */
+    public void done() {
+        if (unfinished.decrementAndGet() == 0) {
+            queue.add(END);
+        }
+    }
+
+    public int admitted() {
+        return visited.size();
+    }
+
+    public VisitedSet visited() {
+        return visited;
+    }
+
+    /**
+     * URLs admitted but not taken yet, in no particular order. Only consistent while nothing is in flight.
+     */
+    public List<Entry> pending() {
+        List<Entry> pending = new ArrayList<>(queue);
+        pending.remove(END);
+        return pending;
+    }
+
+    /**
+     * Puts back the state of a crawl saved from {@link #visited} and {@link #pending}; must be called
+     * before anything is offered.
+     */
+    public void restore(Collection<String> admitted, List<Entry> pending) {
+        for (String url : admitted) {
+            visited.add(url);
+        }
+        long next = 0;
+        for (Entry entry : pending) {
+            next = Math.max(next, entry.sequence() + 1);
+        }
+        sequence.set(next);
+        unfinished.set(pending.size());
+        queue.addAll(pending);
+        if (pending.isEmpty()) {
+            queue.add(END);
+        }
+    }
+}
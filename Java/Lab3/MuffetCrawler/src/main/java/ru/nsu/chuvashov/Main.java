@@ -1,18 +1,100 @@
 package ru.nsu.chuvashov;
 
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private static final int RUN_SIZE = 1 << 16;
+    private static final String USAGE = "Usage: java Main <port> [--max-in-flight N] [--mode blocking|async]"
+            + " [--sink sorted|stream] [--output file] [--checkpoint dir [--resume]] [--cache dir]";
+
     public static void main(String[] args) {
-        if  (args.length != 1) {
-            System.err.println("Usage: java Main <port>");
-            System.exit(1);
+        if (args.length < 1) {
+            usage();
         }
 
         int port = Integer.parseInt(args[0]);
+        int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        String mode = "blocking";
+        String sink = "sorted";
+        String output = null;
+        String checkpointDirectory = null;
+        String cacheDirectory = null;
+        boolean resume = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--resume")) {
+                resume = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            switch (args[i]) {
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                case "--mode" -> mode = args[++i];
+                case "--sink" -> sink = args[++i];
+                case "--output" -> output = args[++i];
+                case "--checkpoint" -> checkpointDirectory = args[++i];
+                case "--cache" -> cacheDirectory = args[++i];
+                default -> usage();
+            }
+        }
+        if (!mode.equals("blocking") && !mode.equals("async") || !sink.equals("sorted") && !sink.equals("stream")
+                || resume && checkpointDirectory == null) {
+            usage();
+        }
+
+        long count = 0;
+        try (Checkpoint checkpoint = checkpointDirectory == null ? null : new Checkpoint(Path.of(checkpointDirectory), resume);
+             ResultSink messages = createSink(sink, output)) {
+            ResponseCache cache = cacheDirectory == null ? null : new ResponseCache(Path.of(cacheDirectory));
+            Crawler crawler = new Crawler(port, maxInFlight, mode.equals("async"), messages, checkpoint, cache);
+            System.out.println("Starting Crawler");
+            crawler.run();
+            count = messages.count();
+        } catch (IOException e) {
+            System.err.println("Crawl failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println(count);
+    }
+
+    private static ResultSink createSink(String sink, String output) throws IOException {
+        Writer out = new BufferedWriter(output == null
+                ? new OutputStreamWriter(unclosable(System.out), StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Path.of(output)), 1 << 16);
+        return sink.equals("sorted") ? new SortedRunSink(out, RUN_SIZE) : new StreamingSink(out);
+    }
+
+    /**
+     * Lets the sink close its writer without closing stdout, which the count is printed to afterwards.
+     */
+    private static OutputStream unclosable(OutputStream stream) {
+        return new FilterOutputStream(stream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
 
-        Crawler crawler = new Crawler(port);
-        System.out.println("Starting Crawler");
-        crawler.run();
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
     }
-}
\ No newline at end of file
+}
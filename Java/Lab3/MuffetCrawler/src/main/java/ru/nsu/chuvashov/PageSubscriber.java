@@ -0,0 +1,137 @@
+package ru.nsu.chuvashov;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Parses a page while it arrives: every chunk of the body is fed to Jackson's non-blocking parser, and
+ * each successor is handed to the callback as soon as its string is complete, before the rest of the body
+ * has been read. No body string or tree is built unless the raw body is asked for.
+ */
+public class PageSubscriber implements HttpResponse.BodySubscriber<PageSubscriber.Page> {
+    /**
+     * The page's message, or {@code null} if it has none, and the raw body if it was kept.
+     */
+    public record Page(String message, byte[] body) {
+    }
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final Consumer<String> onSuccessor;
+    private final ByteArrayOutputStream body;
+    private final CompletableFuture<Page> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private int depth;
+    private String field;
+    private String message;
+
+    public PageSubscriber(JsonFactory factory, Consumer<String> onSuccessor, boolean keepBody) {
+        try {
+            this.parser = factory.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.onSuccessor = onSuccessor;
+        this.body = keepBody ? new ByteArrayOutputStream() : null;
+    }
+
+    /**
+     * Parses a body that is already in memory, such as a cached one.
+     */
+    public static Page parse(JsonFactory factory, byte[] body, Consumer<String> onSuccessor) throws IOException {
+        PageSubscriber subscriber = new PageSubscriber(factory, onSuccessor, false);
+        subscriber.feed(ByteBuffer.wrap(body));
+        subscriber.feeder.endOfInput();
+        subscriber.drain();
+        return new Page(subscriber.message, body);
+    }
+
+    @Override
+    public CompletionStage<Page> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        try {
+            for (ByteBuffer item : items) {
+                feed(item);
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            feeder.endOfInput();
+            drain();
+            result.complete(new Page(message, body == null ? null : body.toByteArray()));
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void feed(ByteBuffer item) throws IOException {
+        if (body != null) {
+            byte[] chunk = new byte[item.remaining()];
+            item.duplicate().get(chunk);
+            body.writeBytes(chunk);
+        }
+        feeder.feedInput(item);
+        drain();
+    }
+
+    /**
+     * Consumes every token the parser can produce from the input fed so far.
+     */
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> depth--;
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        field = parser.currentName();
+                    }
+                }
+                default -> {
+                    if (token.isScalarValue() && depth == 1 && "message".equals(field)) {
+                        message = parser.getText();
+                    } else if (token.isScalarValue() && depth == 2 && "successors".equals(field)) {
+                        onSuccessor.accept(parser.getText());
+                    }
+                }
+            }
+        }
+    }
+}
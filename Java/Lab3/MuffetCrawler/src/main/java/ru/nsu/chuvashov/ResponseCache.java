@@ -0,0 +1,100 @@
+package ru.nsu.chuvashov;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Local copy of the responses that carried an {@code ETag} or {@code Last-Modified} validator, one file
+ * per URL named by the SHA-256 of the URL. A re-crawl sends the stored validators, and a {@code 304 Not
+ * Modified} answer is served from the stored body.
+ */
+public class ResponseCache {
+    public record Entry(String etag, String lastModified, byte[] body) {
+    }
+
+    private final Path directory;
+
+    public ResponseCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * The stored response for the URL, or {@code null}.
+     */
+    public Entry get(String url) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file(url))))) {
+            if (!in.readUTF().equals(url)) {
+                return null;
+            }
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            return new Entry(etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified,
+                    in.readNBytes(in.readInt()));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable cache entry for " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds the validators of a stored response to the request, if there is one.
+     */
+    public static HttpRequest.Builder conditional(HttpRequest.Builder request, Entry cached) {
+        if (cached != null && cached.etag() != null) {
+            request.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            request.header("If-Modified-Since", cached.lastModified());
+        }
+        return request;
+    }
+
+    /**
+     * Stores a {@code 200} response if it has a validator to revalidate it with later.
+     */
+    public void put(String url, HttpHeaders headers, byte[] body) {
+        String etag = headers.firstValue("ETag").orElse("");
+        String lastModified = headers.firstValue("Last-Modified").orElse("");
+        if (etag.isEmpty() && lastModified.isEmpty()) {
+            return;
+        }
+        Path file = file(url);
+        Path temp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(url);
+                out.writeUTF(etag);
+                out.writeUTF(lastModified);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not cache response for " + url + ": " + e.getMessage());
+        }
+    }
+
+    private Path file(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.nsu.chuvashov;
+
+import java.io.IOException;
+
+/**
+ * Destination of the messages collected by a crawl. {@link #accept} is called concurrently from the
+ * crawling threads and must not do output itself; it may only wait when the output has fallen far behind.
+ * {@link #close} is called once, after the crawl.
+ */
+public interface ResultSink extends AutoCloseable {
+
+    void accept(String message);
+
+    /**
+     * Number of messages accepted so far.
+     */
+    long count();
+
+    /**
+     * Writes out whatever is still held back, flushes the output and closes it.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,232 @@
+package ru.nsu.chuvashov;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes all messages sorted, one per line, when closed. Messages are appended to striped buffers picked by
+ * thread, so concurrent crawlers rarely share a lock. A buffer that reaches {@code runSize} is handed to a
+ * background thread that sorts it and spills it to a temporary file as a sorted run; on close the runs on
+ * disk and the sorted remainders of the buffers are merged. Heap use is bounded by the buffers and the
+ * full buffers waiting to be spilled, not the crawl size.
+ */
+public class SortedRunSink implements ResultSink {
+    private static final class Stripe {
+        List<String> buffer = new ArrayList<>();
+    }
+
+    private final Writer out;
+    private final int runSize;
+    private final Stripe[] stripes;
+    private final ConcurrentLinkedQueue<Path> runs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong count = new AtomicLong();
+    private final ExecutorService spiller = Executors.newSingleThreadExecutor(
+            r -> Thread.ofPlatform().name("run-spiller").daemon().unstarted(r));
+    private final Semaphore spillSlots;
+    private volatile IOException spillFailure;
+    private Path spillDirectory;
+
+    public SortedRunSink(Writer out, int runSize) {
+        this.out = out;
+        this.runSize = runSize;
+        this.stripes = new Stripe[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.spillSlots = new Semaphore(stripes.length);
+    }
+
+    @Override
+    public void accept(String message) {
+        count.incrementAndGet();
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        List<String> full;
+        synchronized (stripe) {
+            stripe.buffer.add(message);
+            if (stripe.buffer.size() < runSize) {
+                return;
+            }
+            full = stripe.buffer;
+            stripe.buffer = new ArrayList<>();
+        }
+        spillSlots.acquireUninterruptibly();
+        spiller.execute(() -> {
+            try {
+                full.sort(null);
+                runs.add(spill(full));
+            } catch (IOException e) {
+                spillFailure = e;
+            } finally {
+                spillSlots.release();
+            }
+        });
+    }
+
+    @Override
+    public long count() {
+        return count.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        PriorityQueue<Run> heads = new PriorityQueue<>();
+        List<DataInputStream> inputs = new ArrayList<>();
+        try {
+            spiller.shutdown();
+            try {
+                spiller.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while spilling sorted runs");
+            }
+            if (spillFailure != null) {
+                throw new IOException("Could not spill sorted run", spillFailure);
+            }
+            for (Stripe stripe : stripes) {
+                List<String> rest;
+                synchronized (stripe) {
+                    rest = stripe.buffer;
+                    stripe.buffer = new ArrayList<>();
+                }
+                rest.sort(null);
+                Run.start(rest.iterator(), heads);
+            }
+            for (Path run : runs) {
+                DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+                inputs.add(input);
+                Run.start(new RunReader(input), heads);
+            }
+
+            while (!heads.isEmpty()) {
+                Run run = heads.poll();
+                out.write(run.head);
+                out.write(System.lineSeparator());
+                if (run.advance()) {
+                    heads.add(run);
+                }
+            }
+            out.flush();
+        } finally {
+            for (DataInputStream input : inputs) {
+                input.close();
+            }
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            if (spillDirectory != null) {
+                Files.deleteIfExists(spillDirectory);
+            }
+            out.close();
+        }
+    }
+
+    private Path spill(List<String> sorted) throws IOException {
+        Path file = Files.createTempFile(spillDirectory(), "run", ".bin");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            for (String message : sorted) {
+                byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+        return file;
+    }
+
+    private synchronized Path spillDirectory() throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = Files.createTempDirectory("crawler-runs");
+        }
+        return spillDirectory;
+    }
+
+    /**
+     * A sorted run during the merge, ordered by its current head.
+     */
+    private static final class Run implements Comparable<Run> {
+        private final Iterator<String> rest;
+        private String head;
+
+        private Run(Iterator<String> rest) {
+            this.rest = rest;
+        }
+
+        static void start(Iterator<String> items, PriorityQueue<Run> heads) {
+            Run run = new Run(items);
+            if (run.advance()) {
+                heads.add(run);
+            }
+        }
+
+        boolean advance() {
+            if (!rest.hasNext()) {
+                return false;
+            }
+            head = rest.next();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            return head.compareTo(other.head);
+        }
+    }
+
+    /**
+     * Reads back a run written by {@link #spill}.
+     */
+    private static final class RunReader implements Iterator<String> {
+        private final DataInputStream input;
+        private String next;
+
+        RunReader(DataInputStream input) {
+            this.input = input;
+            this.next = read();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String current = next;
+            next = read();
+            return current;
+        }
+
+        private String read() {
+            try {
+                int length = input.readInt();
+                return new String(input.readNBytes(length), StandardCharsets.UTF_8);
+            } catch (EOFException e) {
+                return null;
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read sorted run", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.nsu.chuvashov;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes messages one per line in arrival order as they come in. Crawling threads only enqueue into a
+ * bounded queue and wait only when the writer thread, which does all the output, is that far behind.
+ * Once the output has failed further messages are dropped and {@link #close} reports the failure.
+ */
+public class StreamingSink implements ResultSink {
+    private static final int CAPACITY = 1 << 14;
+    private static final long POLL_MILLIS = 100;
+
+    private final Writer out;
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicLong count = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public StreamingSink(Writer out) {
+        this.out = out;
+        this.writer = Thread.ofPlatform().name("result-writer").daemon().start(this::write);
+    }
+
+    @Override
+    public void accept(String message) {
+        boolean interrupted = false;
+        try {
+            while (failure == null) {
+                try {
+                    if (queue.offer(message, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        count.incrementAndGet();
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public long count() {
+        return count.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                String message = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    if (closed && queue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                out.write(message);
+                out.write(System.lineSeparator());
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new IOException("Result writer was interrupted", e);
+        }
+        queue.clear();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.nsu.chuvashov;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * URLs admitted to a crawl, in a concurrent set presized for the expected crawl so it rarely rehashes.
+ * Admission is a single {@code add}: it both checks and records the URL.
+ */
+public class VisitedSet {
+    private final Set<String> urls;
+
+    public VisitedSet(int expectedUrls) {
+        this.urls = ConcurrentHashMap.newKeySet(expectedUrls);
+    }
+
+    /**
+     * Records the URL and returns {@code true} only for the first caller to add it.
+     */
+    public boolean add(String url) {
+        return urls.add(url);
+    }
+
+    public int size() {
+        return urls.size();
+    }
+
+    public Set<String> urls() {
+        return Collections.unmodifiableSet(urls);
+    }
+}